@@ -0,0 +1,109 @@
+package kahoot.bench;
+
+import kahoot.log.Log;
+import kahoot.messages.AnswerMessage;
+import kahoot.server.ClientConnection;
+import kahoot.server.GameServer;
+import kahoot.server.GameState;
+import kahoot.server.OutboundFrame;
+import kahoot.server.OutboundQueue;
+import kahoot.server.ServerConfig;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * GameState.processAnswer de ponta a ponta, sem rede: clientes falsos em memória
+ * descartam os frames recebidos. Cada invocação joga um jogo de duas perguntas
+ * (uma individual e uma de equipa) em que todos os jogadores respondem, incluindo
+ * pontuação, fim de ronda, broadcast das pontuações e fim do jogo.
+ * A criação do jogo e as inscrições ficam fora da medição.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AnswerPathBenchmark {
+    private static final int TEAMS = 2;
+
+    @Param({"10", "200"})
+    int players;
+
+    private GameServer server;
+    private Log.Level originalLevel;
+    private PrintStream originalOut;
+    private GameState game;
+    private AnswerMessage[][] answers; // [pergunta][jogador]
+    private long gameCounter;
+
+    // Ligação sem transporte: cada frame é dado como entregue logo que chega
+    private static final class FakeClient extends ClientConnection {
+        FakeClient(GameServer server) {
+            super(server);
+        }
+
+        @Override
+        public void sendFrame(OutboundFrame frame) {
+            frame.done();
+        }
+
+        @Override
+        protected void closeTransport() {
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        // Porta 0 e sem start(): o servidor só fornece o temporizador e as filas de saída
+        server = new GameServer(new ServerConfig(0, ServerConfig.Transport.BLOCKING, 1,
+                ServerConfig.ThreadMode.PLATFORM, 64, OutboundQueue.OverflowPolicy.DROP_SUPERSEDED, 16, 0, 0, null));
+        // As respostas só geram debug (desligado); as inscrições e o início de cada jogo
+        // geram info - sem isto a thread do log ficaria a escrever na consola durante a medição
+        originalLevel = Log.getLevel();
+        Log.setLevel(Log.Level.WARN);
+        // Cada jogo novo escreve as perguntas sorteadas na consola (fora da medição, mas enche o output)
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        int perTeam = players / TEAMS;
+        answers = new AnswerMessage[2][TEAMS * perTeam];
+        for (int q = 0; q < 2; q++) {
+            for (int i = 0; i < TEAMS * perTeam; i++) {
+                String teamId = "Team" + (i / perTeam + 1);
+                answers[q][i] = new AnswerMessage("bench", teamId, "Player" + i, q, i % 4);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        // Fecha também o socket da porta 0, que de outro modo ficava aberto até ao fim do fork
+        server.shutdown();
+        Log.setLevel(originalLevel);
+        System.setOut(originalOut);
+    }
+
+    @Setup(Level.Invocation)
+    public void newGame() {
+        int perTeam = players / TEAMS;
+        game = new GameState("bench" + (++gameCounter), TEAMS, perTeam, 2, server);
+        // A última inscrição inicia o jogo e envia a primeira pergunta
+        for (AnswerMessage answer : answers[0]) {
+            game.addPlayer(answer.getTeamId(), answer.getUsername(), new FakeClient(server));
+        }
+    }
+
+    @Benchmark
+    public boolean playGame() {
+        for (AnswerMessage[] round : answers) {
+            for (AnswerMessage answer : round) {
+                game.processAnswer(answer);
+            }
+        }
+        return game.isFinished();
+    }
+}
@@ -0,0 +1,151 @@
+package kahoot.bench;
+
+import kahoot.log.Log;
+import kahoot.messages.AnswerMessage;
+import kahoot.server.ClientConnection;
+import kahoot.server.GameServer;
+import kahoot.server.GameState;
+import kahoot.server.OutboundFrame;
+import kahoot.server.OutboundQueue;
+import kahoot.server.ServerConfig;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Débito do caminho das respostas (GameState.processAnswer) com 1, 2, 4, ... threads a
+ * responder ao mesmo jogo, sem rede. Cada jogo tem os jogadores repartidos por várias
+ * equipas e duas perguntas (uma individual e uma de equipa); cada thread responde por
+ * jogadores de todas as equipas. Só a fase das respostas é medida - criar o jogo e as
+ * inscrições fica de fora. Mostra respostas/s e o ganho em relação a uma thread.
+ *
+ *   ./gradlew :benchmarks:answerScaling
+ *   ./gradlew :benchmarks:answerScaling -Pargs='1,2,4,8 16 64 300'   (threads equipas jogadores/equipa jogos)
+ */
+public final class AnswerScaling {
+    private static final int QUESTIONS = 2;
+
+    // Ligação sem transporte: cada frame é dado como entregue logo que chega
+    private static final class FakeClient extends ClientConnection {
+        FakeClient(GameServer server) {
+            super(server);
+        }
+
+        @Override
+        public void sendFrame(OutboundFrame frame) {
+            frame.done();
+        }
+
+        @Override
+        protected void closeTransport() {
+        }
+    }
+
+    private AnswerScaling() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] threadCounts = parseThreads(args.length > 0 ? args[0] : "1,2,4,8,16,32");
+        int teams = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int perTeam = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int games = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        int players = teams * perTeam;
+
+        PrintStream out = System.out;
+        // O jogo escreve as perguntas sorteadas na consola e regista inscrições em info - não medir isso
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Log.setLevel(Log.Level.WARN);
+        GameServer server = new GameServer(new ServerConfig(0, ServerConfig.Transport.BLOCKING, 1,
+                ServerConfig.ThreadMode.PLATFORM, 64, OutboundQueue.OverflowPolicy.DROP_SUPERSEDED, 16, 0, 0, null));
+        try {
+            AnswerMessage[][] answers = new AnswerMessage[QUESTIONS][players];
+            for (int q = 0; q < QUESTIONS; q++) {
+                for (int i = 0; i < players; i++) {
+                    answers[q][i] = new AnswerMessage("scaling", "Team" + (i / perTeam + 1), "Player" + i, q, i % 4);
+                }
+            }
+
+            out.printf("%d equipas x %d jogadores, %d perguntas, %d jogos por medição, %d processadores%n",
+                    teams, perTeam, QUESTIONS, games, Runtime.getRuntime().availableProcessors());
+            // Aquecimento do JIT com uma e com várias threads antes da primeira medição
+            for (int threads : new int[] {1, threadCounts[threadCounts.length - 1]}) {
+                ExecutorService pool = Executors.newFixedThreadPool(threads);
+                try {
+                    run(server, pool, threads, answers, teams, perTeam, games);
+                } finally {
+                    pool.shutdownNow();
+                }
+            }
+
+            out.println("threads   respostas/s   ganho");
+            double base = 0;
+            for (int threads : threadCounts) {
+                ExecutorService pool = Executors.newFixedThreadPool(threads);
+                try {
+                    run(server, pool, threads, answers, teams, perTeam, Math.max(1, games / 4)); // aquecer o pool
+                    double rate = run(server, pool, threads, answers, teams, perTeam, games);
+                    if (base == 0) {
+                        base = rate;
+                    }
+                    out.printf("%7d   %11.0f   %5.2fx%n", threads, rate, rate / base);
+                } finally {
+                    pool.shutdownNow();
+                }
+            }
+        } finally {
+            server.shutdown();
+            System.setOut(out);
+        }
+    }
+
+    // Joga "games" jogos e devolve as respostas por segundo da fase de respostas
+    private static double run(GameServer server, ExecutorService pool, int threads, AnswerMessage[][] answers,
+                              int teams, int perTeam, int games) throws Exception {
+        long answered = 0;
+        long nanos = 0;
+        for (int g = 0; g < games; g++) {
+            GameState game = new GameState("scaling", teams, perTeam, QUESTIONS, server);
+            for (AnswerMessage answer : answers[0]) {
+                game.addPlayer(answer.getTeamId(), answer.getUsername(), new FakeClient(server));
+            }
+
+            for (AnswerMessage[] round : answers) {
+                List<Callable<Void>> tasks = new ArrayList<>(threads);
+                for (int k = 0; k < threads; k++) {
+                    int first = k;
+                    // Jogadores first, first + threads, ... - de todas as equipas
+                    tasks.add(() -> {
+                        for (int i = first; i < round.length; i += threads) {
+                            game.processAnswer(round[i]);
+                        }
+                        return null;
+                    });
+                }
+                long start = System.nanoTime();
+                for (Future<Void> task : pool.invokeAll(tasks)) {
+                    task.get();
+                }
+                nanos += System.nanoTime() - start;
+                answered += round.length;
+            }
+            if (!game.isFinished()) {
+                throw new IllegalStateException("Jogo não terminou depois de todas as respostas");
+            }
+        }
+        return answered * 1e9 / nanos;
+    }
+
+    private static int[] parseThreads(String list) {
+        String[] parts = list.split(",");
+        int[] counts = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            counts[i] = Integer.parseInt(parts[i].trim());
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,78 @@
+package kahoot.bench;
+
+import kahoot.game.Question;
+import kahoot.messages.*;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Codificação e descodificação das mensagens mais frequentes (resposta, pergunta,
+ * pontuação) com o protocolo binário e com serialização Java.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+    @Param({"BINARY", "JAVA"})
+    WireFormat.Codec codec;
+
+    private AnswerMessage answer;
+    private QuestionMessage question;
+    private ScoreMessage score;
+    private byte[] answerBytes;
+    private byte[] questionBytes;
+    private byte[] scoreBytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        answer = new AnswerMessage("game1", "Team1", "Player1", 3, 2);
+        Question q = new Question("Qual destas primitivas bloqueia até o contador chegar a zero?",
+                new String[] {"Semaphore", "CountDownLatch", "ReentrantLock", "AtomicInteger"}, 1, 5);
+        question = new QuestionMessage("game1", "", "", q, 30, 3, false);
+        Map<String, Integer> teamScores = new HashMap<>();
+        for (int i = 1; i <= 4; i++) {
+            teamScores.put("Team" + i, i * 10);
+        }
+        score = new ScoreMessage("game1", "", "", teamScores, 0, 3, 2, 5);
+
+        answerBytes = WireFormat.encode(answer, codec);
+        questionBytes = WireFormat.encode(question, codec);
+        scoreBytes = WireFormat.encode(score, codec);
+    }
+
+    @Benchmark
+    public byte[] encodeAnswer() throws IOException {
+        return WireFormat.encode(answer, codec);
+    }
+
+    @Benchmark
+    public Message decodeAnswer() throws IOException {
+        return WireFormat.decode(answerBytes, 0, answerBytes.length, codec);
+    }
+
+    @Benchmark
+    public byte[] encodeQuestion() throws IOException {
+        return WireFormat.encode(question, codec);
+    }
+
+    @Benchmark
+    public Message decodeQuestion() throws IOException {
+        return WireFormat.decode(questionBytes, 0, questionBytes.length, codec);
+    }
+
+    @Benchmark
+    public byte[] encodeScore() throws IOException {
+        return WireFormat.encode(score, codec);
+    }
+
+    @Benchmark
+    public Message decodeScore() throws IOException {
+        return WireFormat.decode(scoreBytes, 0, scoreBytes.length, codec);
+    }
+}
@@ -0,0 +1,158 @@
+package kahoot.bench;
+
+import kahoot.coordination.ModifiedCountdownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * ModifiedCountdownLatch (CAS) contra a versão anterior com synchronized
+ * (SynchronizedCountdownLatch): custo de um countDown com 1 a 64 threads a competir
+ * pelo mesmo contador (como as respostas de uma pergunta individual) e de uma ronda
+ * completa reset + countDown dos jogadores + await/onComplete.
+ *
+ * Só uma implementação:
+ *   ./gradlew :benchmarks:jmh -Pjmh='LatchBenchmark -p impl=CAS'
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatchBenchmark {
+
+    public enum Impl { CAS, SYNCHRONIZED }
+
+    // Contador partilhado por todas as threads do benchmark
+    @State(Scope.Benchmark)
+    public static class Shared {
+        @Param({"CAS", "SYNCHRONIZED"})
+        Impl impl;
+
+        ModifiedCountdownLatch cas;
+        SynchronizedCountdownLatch sync;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            // Grande o suficiente para não chegar a zero numa iteração
+            cas = new ModifiedCountdownLatch(2, 2, Integer.MAX_VALUE);
+            sync = new SynchronizedCountdownLatch(2, 2, Integer.MAX_VALUE);
+        }
+
+        int countDown() {
+            return impl == Impl.CAS ? cas.countDown() : sync.countDown();
+        }
+    }
+
+    // Um contador por thread, reiniciado a cada ronda
+    @State(Scope.Thread)
+    public static class Round {
+        @Param({"10", "200"})
+        int players;
+
+        @Param({"CAS", "SYNCHRONIZED"})
+        Impl impl;
+
+        ModifiedCountdownLatch cas;
+        SynchronizedCountdownLatch sync;
+        int completed;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            cas = new ModifiedCountdownLatch(2, 2, players);
+            sync = new SynchronizedCountdownLatch(2, 2, players);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int countDown(Shared state) {
+        return state.countDown();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public int countDown02(Shared state) {
+        return state.countDown();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int countDown04(Shared state) {
+        return state.countDown();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int countDown08(Shared state) {
+        return state.countDown();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public int countDown16(Shared state) {
+        return state.countDown();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public int countDown32(Shared state) {
+        return state.countDown();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public int countDown64(Shared state) {
+        return state.countDown();
+    }
+
+    @Benchmark
+    public void countDownWithAction(Shared state, Blackhole blackhole) {
+        if (state.impl == Impl.CAS) {
+            state.cas.countDown(blackhole::consume);
+        } else {
+            state.sync.countDown(blackhole::consume);
+        }
+    }
+
+    // Uma pergunta: reset, todos respondem, await já não bloqueia
+    @Benchmark
+    public void roundAwait(Round round) throws InterruptedException {
+        if (round.impl == Impl.CAS) {
+            ModifiedCountdownLatch latch = round.cas;
+            latch.reset(round.players);
+            for (int i = 0; i < round.players; i++) {
+                latch.countDown();
+            }
+            latch.await();
+        } else {
+            SynchronizedCountdownLatch latch = round.sync;
+            latch.reset(round.players);
+            for (int i = 0; i < round.players; i++) {
+                latch.countDown();
+            }
+            latch.await();
+        }
+    }
+
+    // Uma pergunta terminada por callback, como em GameState
+    @Benchmark
+    public int roundOnComplete(Round round) {
+        if (round.impl == Impl.CAS) {
+            ModifiedCountdownLatch latch = round.cas;
+            latch.reset(round.players);
+            latch.onComplete(() -> round.completed++);
+            for (int i = 0; i < round.players; i++) {
+                latch.countDown();
+            }
+        } else {
+            SynchronizedCountdownLatch latch = round.sync;
+            latch.reset(round.players);
+            latch.onComplete(() -> round.completed++);
+            for (int i = 0; i < round.players; i++) {
+                latch.countDown();
+            }
+        }
+        return round.completed;
+    }
+}
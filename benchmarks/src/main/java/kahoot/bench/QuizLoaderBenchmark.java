@@ -0,0 +1,83 @@
+package kahoot.bench;
+
+import kahoot.game.Quiz;
+import kahoot.game.QuizStreamLoader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Escolher 10 perguntas de um banco JSON grande: árvore do Gson (Quiz.loadFromJson)
+ * contra JsonReader com reservoir sampling (QuizStreamLoader), lido com read() ou
+ * com memory-mapping. O banco (um só quiz) é gerado na primeira vez na diretoria
+ * temporária e reutilizado. Com -prof gc o JMH mostra também a memória alocada.
+ *
+ * Por omissão 1 MB e 100 MB; o de 1 GB é opcional porque a árvore esgota o heap:
+ *   ./gradlew :benchmarks:jmh -Pjmh='QuizLoaderBenchmark -p megabytes=1024 -p loader=STREAM,MAPPED'
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g"})
+@State(Scope.Benchmark)
+public class QuizLoaderBenchmark {
+    private static final int QUESTIONS = 10;
+
+    public enum Loader { TREE, STREAM, MAPPED }
+
+    @Param({"1", "100"})
+    int megabytes;
+
+    @Param({"TREE", "STREAM", "MAPPED"})
+    Loader loader;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = Paths.get(System.getProperty("java.io.tmpdir"), "kahoot-bench-" + megabytes + "mb.json");
+        long target = megabytes * 1024L * 1024L;
+        if (!Files.exists(file) || Files.size(file) < target) {
+            generate(file, target);
+        }
+    }
+
+    @Benchmark
+    public Quiz load() throws IOException {
+        switch (loader) {
+            case TREE:
+                return Quiz.loadFromJson(file.toString(), QUESTIONS);
+            case STREAM:
+                return QuizStreamLoader.load(file, QUESTIONS, false);
+            default:
+                return QuizStreamLoader.load(file, QUESTIONS, true);
+        }
+    }
+
+    // Perguntas com o formato do quizzes.json até o ficheiro ter pelo menos target bytes
+    static void generate(Path file, long target) throws IOException {
+        Path tmp = Paths.get(file + ".tmp");
+        long written = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            out.write("{\"quizzes\": [{\"name\": \"Banco\", \"questions\": [\n");
+            for (int i = 0; written < target; i++) {
+                String question = (i > 0 ? ",\n" : "")
+                        + "{\"question\": \"Pergunta " + i
+                        + ": qual destas primitivas bloqueia até o contador chegar a zero?\", "
+                        + "\"points\": " + (1 + i % 5) + ", \"correct\": " + (i % 4) + ", "
+                        + "\"options\": [\"Semaphore\", \"CountDownLatch\", \"ReentrantLock\", \"AtomicInteger\"]}";
+                out.write(question);
+                written += question.length();
+            }
+            out.write("\n]}]}\n");
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
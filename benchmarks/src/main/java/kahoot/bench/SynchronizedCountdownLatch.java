@@ -0,0 +1,122 @@
+package kahoot.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
+
+/**
+ * Versão anterior de ModifiedCountdownLatch, com o contador protegido por synchronized.
+ * Fica só no módulo de benchmarks como base de comparação em LatchBenchmark.
+ */
+public class SynchronizedCountdownLatch {
+    private int count;
+    private final int bonusFactor;
+    private final int bonusCount;
+    private int currentBonus;
+    private int parties; // contagem inicial
+    private int settled; // countDowns cuja ação já terminou
+    private List<Runnable> onComplete; // callbacks da contagem atual (null depois de disparados)
+
+    public SynchronizedCountdownLatch(int bonusFactor, int bonusCount, int count) {
+        this.bonusFactor = bonusFactor;
+        this.bonusCount = bonusCount;
+        this.count = count;
+        this.currentBonus = 0;
+        this.parties = count;
+        this.settled = 0;
+        this.onComplete = count > 0 ? new ArrayList<>() : null;
+    }
+
+    public int countDown() {
+        return countDown(bonus -> {});
+    }
+
+    /**
+     * countDown() seguido de uma ação com o bónus atribuído (ex.: somar os pontos).
+     * Os callbacks de onComplete só correm depois de terminarem as ações de todos,
+     * na thread que terminar a última.
+     */
+    public int countDown(IntConsumer action) {
+        int bonus = arrive();
+        boolean counted = bonus != 0;
+        if (!counted) {
+            bonus = 1; // Sem bónus
+        }
+        try {
+            action.accept(bonus);
+        } finally {
+            if (counted) {
+                settle();
+            }
+        }
+        return bonus;
+    }
+
+    // Devolve o bónus, ou 0 se o contador já estava a zero
+    private synchronized int arrive() {
+        if (count <= 0) {
+            return 0;
+        }
+
+        count--;
+        int bonus = 1; // Sem bónus por padrão
+        if (currentBonus < bonusCount) {
+            currentBonus++;
+            bonus = bonusFactor; // Bónus para os primeiros
+        }
+
+        // Quando o contador chegar a zero, desbloquear todas as threads em await()
+        if (count == 0) {
+            notifyAll();
+        }
+
+        return bonus;
+    }
+
+    private void settle() {
+        List<Runnable> callbacks;
+        synchronized (this) {
+            settled++;
+            if (settled < parties || onComplete == null) {
+                return;
+            }
+            callbacks = onComplete;
+            onComplete = null;
+        }
+        callbacks.forEach(Runnable::run);
+    }
+
+    // Corre o callback quando todos tiverem contado (imediatamente se já aconteceu) - alternativa a await()
+    public void onComplete(Runnable callback) {
+        synchronized (this) {
+            if (onComplete != null) {
+                onComplete.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    public CompletableFuture<Void> toCompletableFuture() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        onComplete(() -> future.complete(null));
+        return future;
+    }
+
+    public synchronized void await() throws InterruptedException {
+        while (count > 0) {
+            wait();
+        }
+    }
+
+    // Reset para nova pergunta (callbacks ainda pendentes da contagem anterior são descartados)
+    public synchronized void reset(int newCount) {
+        this.count = newCount;
+        this.currentBonus = 0;
+        this.parties = newCount;
+        this.settled = 0;
+        this.onComplete = newCount > 0 ? new ArrayList<>() : null;
+        notifyAll(); // Acordar threads que possam estar esperando
+    }
+}
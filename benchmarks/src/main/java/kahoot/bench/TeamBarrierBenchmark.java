@@ -0,0 +1,55 @@
+package kahoot.bench;
+
+import kahoot.coordination.TeamBarrier;
+import kahoot.coordination.TimerWheel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * TeamBarrier: ciclo reset + chegadas de uma equipa, no modo bloqueante (await) e no
+ * modo assíncrono (arrive), que também arma e cancela o timeout no temporizador.
+ * No modo bloqueante a equipa tem um só jogador para que await() nunca espere.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TeamBarrierBenchmark {
+    @Param({"2", "5"})
+    int teamSize;
+
+    private TimerWheel timers;
+    private TeamBarrier single;
+    private TeamBarrier team;
+    private int trips;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        timers = new TimerWheel("bench-timer", 10, 512);
+        timers.start();
+        single = new TeamBarrier(1, 30000);
+        team = new TeamBarrier(teamSize, 30000, timers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        timers.shutdown();
+    }
+
+    @Benchmark
+    public int awaitReset() throws InterruptedException {
+        single.reset();
+        return single.await();
+    }
+
+    @Benchmark
+    public int arriveReset() {
+        int generation = team.reset(() -> trips++);
+        for (int i = 0; i < teamSize; i++) {
+            team.arrive(generation);
+        }
+        return trips;
+    }
+}
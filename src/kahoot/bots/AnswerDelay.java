@@ -0,0 +1,71 @@
+package kahoot.bots;
+
+import java.util.Random;
+
+/**
+ * Tempo que um bot demora a responder depois de receber a pergunta.
+ * Formatos: "0" ou "fixed:50" (ms constantes), "uniform:10-200", "exp:100" (exponencial
+ * com média de 100 ms), "normal:200,50" (média 200 ms, desvio-padrão 50 ms, truncada a 0).
+ */
+public final class AnswerDelay {
+    private enum Kind { FIXED, UNIFORM, EXPONENTIAL, NORMAL }
+
+    private final Kind kind;
+    private final double a; // fixed: valor; uniform: mínimo; exp/normal: média
+    private final double b; // uniform: máximo; normal: desvio-padrão
+    private final String description;
+
+    private AnswerDelay(Kind kind, double a, double b, String description) {
+        if (a < 0 || b < 0 || (kind == Kind.UNIFORM && b < a)) {
+            throw new IllegalArgumentException("Atraso inválido: " + description);
+        }
+        this.kind = kind;
+        this.a = a;
+        this.b = b;
+        this.description = description;
+    }
+
+    public static AnswerDelay fixed(double millis) {
+        return new AnswerDelay(Kind.FIXED, millis, 0, "fixed:" + millis);
+    }
+
+    public static AnswerDelay parse(String spec) {
+        String value = spec.trim().toLowerCase();
+        try {
+            int colon = value.indexOf(':');
+            if (colon < 0) {
+                return fixed(Double.parseDouble(value));
+            }
+            String kind = value.substring(0, colon);
+            String[] args = value.substring(colon + 1).split("[-,]");
+            return switch (kind) {
+                case "fixed" -> fixed(Double.parseDouble(args[0]));
+                case "uniform" -> new AnswerDelay(Kind.UNIFORM, Double.parseDouble(args[0]),
+                        Double.parseDouble(args[1]), value);
+                case "exp" -> new AnswerDelay(Kind.EXPONENTIAL, Double.parseDouble(args[0]), 0, value);
+                case "normal" -> new AnswerDelay(Kind.NORMAL, Double.parseDouble(args[0]),
+                        Double.parseDouble(args[1]), value);
+                default -> throw new IllegalArgumentException("Distribuição desconhecida: " + spec);
+            };
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Atraso inválido: " + spec);
+        }
+    }
+
+    // Próximo atraso em nanossegundos
+    public long sampleNanos(Random random) {
+        double millis;
+        switch (kind) {
+            case UNIFORM -> millis = a + random.nextDouble() * (b - a);
+            case EXPONENTIAL -> millis = -a * Math.log(1 - random.nextDouble());
+            case NORMAL -> millis = Math.max(0, a + random.nextGaussian() * b);
+            default -> millis = a;
+        }
+        return (long) (millis * 1_000_000);
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,148 @@
+package kahoot.bots;
+
+import kahoot.messages.*;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Jogador sem interface gráfica: inscreve-se, responde a cada pergunta depois de um
+ * atraso sorteado (certo com a probabilidade configurada) e mede o tempo entre enviar
+ * a resposta e receber a pontuação dessa pergunta. Usa o mesmo protocolo de frames
+ * que o KahootClient; corre numa só thread (virtual no LoadGenerator).
+ */
+public class BotClient implements Runnable {
+    private static final int READ_TIMEOUT_MS = 60_000; // pergunta (30 s) + margem
+
+    private final String host;
+    private final int port;
+    private final String gameId;
+    private final String teamId;
+    private final String username;
+    private final AnswerDelay delay;
+    private final double correctRate;
+    private final Random random;
+
+    // Resultados (lidos depois de a thread do bot terminar)
+    private long[] latencies = new long[16]; // nanos resposta -> pontuação
+    private int latencyCount;
+    private int questionsReceived;
+    private int answersSent;
+    private int correctAnswers;
+    private int scoresReceived;
+    private int messagesReceived;
+    private boolean enrolled;
+    private boolean gameEnded;
+    private String error;
+
+    public BotClient(String host, int port, String gameId, String teamId, String username,
+                     AnswerDelay delay, double correctRate, long seed) {
+        this.host = host;
+        this.port = port;
+        this.gameId = gameId;
+        this.teamId = teamId;
+        this.username = username;
+        this.delay = delay;
+        this.correctRate = correctRate;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void run() {
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), READ_TIMEOUT_MS);
+            socket.setSoTimeout(READ_TIMEOUT_MS);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+            WireFormat.writeFrame(out, new EnrollmentMessage(gameId, teamId, username));
+            play(in, out);
+        } catch (IOException e) {
+            if (error == null) {
+                error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+        } catch (InterruptedException e) {
+            error = "interrompido";
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void play(DataInputStream in, DataOutputStream out) throws IOException, InterruptedException {
+        int answeredIndex = -1;
+        long answeredAt = 0;
+
+        while (true) {
+            Message msg = WireFormat.readFrame(in);
+            messagesReceived++;
+
+            if (msg instanceof QuestionMessage) {
+                QuestionMessage question = (QuestionMessage) msg;
+                questionsReceived++;
+                long wait = delay.sampleNanos(random);
+                if (wait > 0) {
+                    Thread.sleep(Duration.ofNanos(wait));
+                }
+                int answer = chooseAnswer(question);
+                WireFormat.writeFrame(out, new AnswerMessage(gameId, teamId, username,
+                        question.getQuestionIndex(), answer));
+                answeredIndex = question.getQuestionIndex();
+                answeredAt = System.nanoTime();
+                answersSent++;
+            } else if (msg instanceof ScoreMessage || msg instanceof ScoreDeltaMessage) {
+                scoresReceived++;
+                int scoredIndex = msg instanceof ScoreMessage
+                        ? ((ScoreMessage) msg).getQuestionIndex() : ((ScoreDeltaMessage) msg).getQuestionIndex();
+                if (scoredIndex == answeredIndex) {
+                    record(System.nanoTime() - answeredAt);
+                    answeredIndex = -1;
+                }
+            } else if (msg instanceof PingMessage) {
+                WireFormat.writeFrame(out, new PongMessage(gameId, teamId, username,
+                        ((PingMessage) msg).getTimestamp()));
+            } else if (msg instanceof GameEndMessage) {
+                gameEnded = true;
+                return;
+            } else if (msg instanceof ErrorMessage) {
+                String text = ((ErrorMessage) msg).getErrorMessage();
+                if (!text.startsWith("SUCCESS")) {
+                    error = text;
+                    return;
+                }
+                enrolled = true;
+            }
+        }
+    }
+
+    private int chooseAnswer(QuestionMessage question) {
+        int correct = question.getQuestion().getCorrect();
+        int options = question.getQuestion().getOptions().length;
+        if (random.nextDouble() < correctRate || options < 2) {
+            correctAnswers++;
+            return correct;
+        }
+        return (correct + 1 + random.nextInt(options - 1)) % options; // qualquer outra opção
+    }
+
+    private void record(long nanos) {
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencyCount * 2);
+        }
+        latencies[latencyCount++] = nanos;
+    }
+
+    public long[] getLatencies() { return Arrays.copyOf(latencies, latencyCount); }
+    public int getQuestionsReceived() { return questionsReceived; }
+    public int getAnswersSent() { return answersSent; }
+    public int getCorrectAnswers() { return correctAnswers; }
+    public int getScoresReceived() { return scoresReceived; }
+    public int getMessagesReceived() { return messagesReceived; }
+    public boolean isEnrolled() { return enrolled; }
+    public boolean isGameEnded() { return gameEnded; }
+    public String getError() { return error; }
+    public String getUsername() { return username; }
+    public String getGameId() { return gameId; }
+}
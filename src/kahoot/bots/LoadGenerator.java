@@ -0,0 +1,206 @@
+package kahoot.bots;
+
+import kahoot.server.GameServer;
+import kahoot.server.ServerConfig;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Gerador de carga: N bots (BotClient) repartidos por M jogos, cada um numa thread
+ * virtual com a sua ligação TCP. Os jogos são criados num GameServer embebido (porta
+ * local aleatória, configurado pelas mesmas propriedades -Dkahoot.*) ou já existem
+ * num servidor externo (criados na consola com "new" e indicados por ID). O servidor
+ * embebido usa threads virtuais, salvo se -Dkahoot.threads for indicado.
+ *
+ * Uso:
+ *   java kahoot.bots.LoadGenerator --embedded 50 --teams 2 --per-team 10 --questions 5 --delay exp:200
+ *   java kahoot.bots.LoadGenerator --port 8080 --games game1,game2 --teams 2 --per-team 2 --correct 0.5
+ */
+public class LoadGenerator {
+    private final Options options;
+
+    /** Configuração da carga (métodos encadeáveis). */
+    public static class Options {
+        private String host = "localhost";
+        private int port = 8080;
+        private List<String> gameIds = new ArrayList<>();
+        private int embeddedGames; // > 0: servidor embebido com este número de jogos
+        private int teams = 2;
+        private int playersPerTeam = 2;
+        private int questions = 5;
+        private String quizName;
+        private AnswerDelay delay = AnswerDelay.fixed(0);
+        private double correctRate = 0.75;
+        private int timeoutSeconds = 120;
+        private long seed = System.nanoTime();
+        private boolean serverOutput; // mostrar a consola do servidor embebido
+
+        public Options server(String host, int port) { this.host = host; this.port = port; return this; }
+        public Options games(List<String> gameIds) { this.gameIds = new ArrayList<>(gameIds); return this; }
+        public Options embedded(int games) { this.embeddedGames = games; return this; }
+        public Options teams(int teams, int playersPerTeam) { this.teams = teams; this.playersPerTeam = playersPerTeam; return this; }
+        public Options questions(int questions) { this.questions = questions; return this; }
+        public Options quiz(String quizName) { this.quizName = quizName; return this; }
+        public Options delay(AnswerDelay delay) { this.delay = delay; return this; }
+        public Options correctRate(double rate) { this.correctRate = rate; return this; }
+        public Options timeout(int seconds) { this.timeoutSeconds = seconds; return this; }
+        public Options seed(long seed) { this.seed = seed; return this; }
+        public Options serverOutput(boolean show) { this.serverOutput = show; return this; }
+
+        private void validate() {
+            if (embeddedGames < 1 && gameIds.isEmpty()) {
+                throw new IllegalArgumentException("Indique --embedded <jogos> ou --games <id,id,...>");
+            }
+            if (teams < 1 || playersPerTeam < 1 || questions < 1 || timeoutSeconds < 1) {
+                throw new IllegalArgumentException("Valores devem ser positivos");
+            }
+            if (correctRate < 0 || correctRate > 1) {
+                throw new IllegalArgumentException("Taxa de respostas certas deve estar entre 0 e 1");
+            }
+        }
+    }
+
+    public LoadGenerator(Options options) {
+        options.validate();
+        this.options = options;
+    }
+
+    public LoadReport run() throws IOException, InterruptedException {
+        PrintStream console = System.out;
+        GameServer server = null;
+        String host = options.host;
+        int port = options.port;
+        List<String> gameIds = options.gameIds;
+
+        try {
+            if (options.embeddedGames > 0) {
+                ServerConfig base = ServerConfig.fromSystemProperties();
+                // O pool fixo do modo platform/blocking só atende 10 ligações - threads virtuais por omissão
+                ServerConfig.ThreadMode threadMode = System.getProperty("kahoot.threads") == null
+                        ? ServerConfig.ThreadMode.VIRTUAL : base.getThreadMode();
+                // Os bots só entram na classificação global se o ficheiro for indicado explicitamente
+                String leaderboardFile = System.getProperty("kahoot.leaderboard.file") == null
+                        ? null : base.getLeaderboardFile();
+                server = new GameServer(new ServerConfig(0, base.getTransport(), base.getEventLoops(),
+                        threadMode, base.getOutboundCapacity(), base.getOverflowPolicy(),
+                        base.getRegistryShards(), base.getHeartbeatIntervalMs(), base.getHeartbeatTimeoutMs(),
+                        leaderboardFile));
+                if (!options.serverOutput) {
+                    // O servidor escreve uma linha por resposta - com milhares de bots a consola seria o gargalo
+                    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                }
+                server.listen();
+                host = "localhost";
+                port = server.getLocalPort();
+                gameIds = new ArrayList<>();
+                for (int i = 0; i < options.embeddedGames; i++) {
+                    gameIds.add(server.createGame(options.teams, options.playersPerTeam, options.questions,
+                            options.quizName).getGameId());
+                }
+            }
+
+            List<BotClient> clients = new ArrayList<>();
+            for (String gameId : gameIds) {
+                for (int team = 1; team <= options.teams; team++) {
+                    for (int player = 1; player <= options.playersPerTeam; player++) {
+                        clients.add(new BotClient(host, port, gameId, "Team" + team,
+                                "bot-" + gameId + "-" + team + "-" + player, options.delay, options.correctRate,
+                                options.seed + clients.size()));
+                    }
+                }
+            }
+            console.println("🤖 " + clients.size() + " bots em " + gameIds.size() + " jogo(s) -> " + host + ":" + port
+                    + " (atraso " + options.delay + ", " + Math.round(options.correctRate * 100) + "% certas)");
+
+            long start = System.nanoTime();
+            List<Thread> threads = new ArrayList<>(clients.size());
+            for (BotClient client : clients) {
+                threads.add(Thread.ofVirtual().name("bot-", threads.size()).start(client));
+            }
+            long deadline = start + Duration.ofSeconds(options.timeoutSeconds).toNanos();
+            for (Thread thread : threads) {
+                thread.join(Duration.ofNanos(Math.max(1, deadline - System.nanoTime())));
+            }
+            long elapsed = System.nanoTime() - start;
+
+            // Bots que não terminaram a tempo: interromper fecha a ligação da thread virtual
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            return new LoadReport(gameIds.size(), clients, elapsed);
+        } finally {
+            if (server != null) {
+                server.shutdown();
+            }
+            System.setOut(console);
+        }
+    }
+
+    public static void main(String[] args) {
+        try {
+            Options options = parseArgs(args);
+            LoadReport report = new LoadGenerator(options).run();
+            report.print(System.out);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            printUsage();
+        } catch (IOException e) {
+            System.out.println("Erro no gerador de carga: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Options parseArgs(String[] args) {
+        Options options = new Options();
+        String host = "localhost";
+        int port = 8080;
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (name.equals("--server-output")) {
+                options.serverOutput(true);
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Falta o valor de " + name);
+            }
+            String value = args[++i];
+            try {
+                switch (name) {
+                    case "--host" -> host = value;
+                    case "--port" -> port = Integer.parseInt(value);
+                    case "--games" -> options.games(Arrays.asList(value.split(",")));
+                    case "--embedded" -> options.embedded(Integer.parseInt(value));
+                    case "--teams" -> options.teams(Integer.parseInt(value), options.playersPerTeam);
+                    case "--per-team" -> options.teams(options.teams, Integer.parseInt(value));
+                    case "--questions" -> options.questions(Integer.parseInt(value));
+                    case "--quiz" -> options.quiz(value);
+                    case "--delay" -> options.delay(AnswerDelay.parse(value));
+                    case "--correct" -> options.correctRate(Double.parseDouble(value));
+                    case "--timeout" -> options.timeout(Integer.parseInt(value));
+                    case "--seed" -> options.seed(Long.parseLong(value));
+                    default -> throw new IllegalArgumentException("Opção desconhecida: " + name);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor inválido para " + name + ": " + value);
+            }
+        }
+        return options.server(host, port);
+    }
+
+    private static void printUsage() {
+        System.out.println("Uso: java kahoot.bots.LoadGenerator (--embedded <jogos> | --games <id,id,...> "
+                + "[--host <ip>] [--port <porta>])");
+        System.out.println("       [--teams 2] [--per-team 2] [--questions 5] [--quiz <nome>]");
+        System.out.println("       [--delay 0|fixed:ms|uniform:min-max|exp:média|normal:média,desvio] [--correct 0.75]");
+        System.out.println("       [--timeout 120] [--seed n] [--server-output]");
+    }
+}
@@ -0,0 +1,109 @@
+package kahoot.bots;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Resultado de uma execução do LoadGenerator: latência resposta -> pontuação
+ * (percentis sobre todas as amostras), débito e taxas de acerto e de erro.
+ */
+public class LoadReport {
+    private final int games;
+    private final int bots;
+    private final long elapsedNanos;
+    private final long[] latencies; // ordenadas
+    private final int enrolled;
+    private final int finished;
+    private final Set<String> finishedGames;
+    private final long questions;
+    private final long answers;
+    private final long correct;
+    private final long scores;
+    private final long messages;
+    private final TreeMap<String, Integer> errors = new TreeMap<>(); // mensagem -> nº de bots
+
+    LoadReport(int games, List<BotClient> clients, long elapsedNanos) {
+        this.games = games;
+        this.bots = clients.size();
+        this.elapsedNanos = elapsedNanos;
+        this.latencies = clients.stream().flatMapToLong(c -> Arrays.stream(c.getLatencies())).sorted().toArray();
+        this.enrolled = (int) clients.stream().filter(BotClient::isEnrolled).count();
+        this.finished = (int) clients.stream().filter(BotClient::isGameEnded).count();
+        this.finishedGames = clients.stream().filter(BotClient::isGameEnded).map(BotClient::getGameId)
+                .collect(Collectors.toSet());
+        this.questions = clients.stream().mapToLong(BotClient::getQuestionsReceived).sum();
+        this.answers = clients.stream().mapToLong(BotClient::getAnswersSent).sum();
+        this.correct = clients.stream().mapToLong(BotClient::getCorrectAnswers).sum();
+        this.scores = clients.stream().mapToLong(BotClient::getScoresReceived).sum();
+        this.messages = clients.stream().mapToLong(BotClient::getMessagesReceived).sum();
+        for (BotClient client : clients) {
+            if (client.getError() != null) {
+                errors.merge(client.getError(), 1, Integer::sum);
+            } else if (!client.isGameEnded()) {
+                errors.merge("jogo não terminou no tempo limite", 1, Integer::sum);
+            }
+        }
+    }
+
+    // Latência (nanos) abaixo da qual ficam percentile% das amostras; -1 sem amostras
+    public long percentileNanos(double percentile) {
+        if (latencies.length == 0) {
+            return -1;
+        }
+        int index = (int) Math.ceil(latencies.length * percentile / 100.0) - 1;
+        return latencies[Math.max(0, Math.min(latencies.length - 1, index))];
+    }
+
+    public double getAnswersPerSecond() {
+        return elapsedNanos == 0 ? 0 : answers * 1e9 / elapsedNanos;
+    }
+
+    public double getMessagesPerSecond() {
+        return elapsedNanos == 0 ? 0 : messages * 1e9 / elapsedNanos;
+    }
+
+    public double getCorrectRate() {
+        return answers == 0 ? 0 : (double) correct / answers;
+    }
+
+    public int getSamples() { return latencies.length; }
+    public int getFinishedGames() { return finishedGames.size(); }
+    public int getBotErrors() { return bots - finished; }
+    public long getAnswers() { return answers; }
+    public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+
+    public void print(PrintStream out) {
+        out.println("=== Relatório de carga ===");
+        out.println("Jogos: " + games + " (" + finishedGames.size() + " terminados) | Bots: " + bots
+                + " (" + enrolled + " inscritos, " + finished + " até ao fim)");
+        out.println("Perguntas recebidas: " + questions + " | Respostas enviadas: " + answers
+                + " (" + format("%.1f", getCorrectRate() * 100) + "% certas) | Pontuações recebidas: " + scores);
+        if (latencies.length > 0) {
+            out.println("Resposta -> pontuação (" + latencies.length + " amostras): p50 " + millis(percentileNanos(50))
+                    + " | p90 " + millis(percentileNanos(90)) + " | p99 " + millis(percentileNanos(99))
+                    + " | p99.9 " + millis(percentileNanos(99.9)) + " | máx. " + millis(latencies[latencies.length - 1]));
+        } else {
+            out.println("Resposta -> pontuação: sem amostras");
+        }
+        out.println("Débito: " + format("%.0f", getAnswersPerSecond()) + " respostas/s, "
+                + format("%.0f", getMessagesPerSecond()) + " mensagens recebidas/s em "
+                + format("%.2f", elapsedNanos / 1e9) + " s");
+        if (!errors.isEmpty()) {
+            out.println("Erros:");
+            errors.forEach((message, count) -> out.println(" - " + count + "x " + message));
+        }
+    }
+
+    private static String millis(long nanos) {
+        return format("%.2f", nanos / 1e6) + " ms";
+    }
+
+    private static String format(String pattern, double value) {
+        return String.format(Locale.ROOT, pattern, value);
+    }
+}
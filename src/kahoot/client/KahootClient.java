@@ -7,11 +7,21 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
 import java.net.*;
+import java.util.HashMap;
+import java.util.Map;
 
 public class KahootClient {
+    private static final int RECONNECT_ATTEMPTS = 5;
+    private static final long RECONNECT_DELAY_MS = 1000;
+
     private Socket socket;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
+    private DataOutputStream out;
+    private DataInputStream in;
+    private final Object writeLock = new Object(); // out muda quando a ligação é retomada
+    private String serverIP;
+    private int port;
+    private volatile String sessionToken; // recebido na inscrição; permite retomar a sessão
+    private volatile boolean gameOver;
     private String gameId;
     private String teamId;
     private String username;
@@ -25,6 +35,7 @@ public class KahootClient {
     private JLabel roundLabel;
 
     private int currentScore = 0;
+    private final Map<String, Integer> teamScores = new HashMap<>(); // cópia local do placar (thread do Swing)
     private boolean answeringEnabled = false;
     private Thread currentTimerThread = null; // Referência para a thread do timer atual
     private int currentQuestionIndex = -1;
@@ -125,15 +136,14 @@ public class KahootClient {
 
 
     private void connectToServer(String serverIP, int port) {
+        this.serverIP = serverIP;
+        this.port = port;
         try {
-            socket = new Socket(serverIP, port);
-            out = new ObjectOutputStream(socket.getOutputStream());
-            in = new ObjectInputStream(socket.getInputStream());
+            openConnection();
 
             // Enviar mensagem de inscrição
             EnrollmentMessage enrollMsg = new EnrollmentMessage(gameId, teamId, username);
-            out.writeObject(enrollMsg);
-            out.flush();
+            send(enrollMsg);
 
             // Iniciar thread para receber mensagens
             new Thread(this::receiveMessages).start();
@@ -150,33 +160,97 @@ public class KahootClient {
 
 
 
+    private void openConnection() throws IOException {
+        if (socket != null) {
+            socket.close();
+        }
+        socket = new Socket(serverIP, port);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        synchronized (writeLock) {
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+    }
+
     private void receiveMessages() {
-        try {
-            while (true) {
-                Object obj = in.readObject();
-                SwingUtilities.invokeLater(() -> {
-                    try {
-                        if (obj instanceof QuestionMessage) {
-                            handleQuestionMessage((QuestionMessage) obj);
-                        } else if (obj instanceof ScoreMessage) {
-                            handleScoreMessage((ScoreMessage) obj);
-                        } else if (obj instanceof GameEndMessage) {
-                            handleGameEndMessage((GameEndMessage) obj);
-                        } else if (obj instanceof ErrorMessage) {
-                            handleErrorMessage((ErrorMessage) obj);
-                        }
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                });
+        while (true) {
+            try {
+                readMessages();
+            } catch (IOException e) {
+                if (sessionToken == null || gameOver || !resumeSession()) {
+                    SwingUtilities.invokeLater(() -> {
+                        updateStatus("Conexão com o servidor perdida.");
+                    });
+                    return;
+                }
+            }
+        }
+    }
+
+    // Volta a ligar-se e retoma a sessão com o token da inscrição (sem nova inscrição)
+    private boolean resumeSession() {
+        for (int attempt = 1; attempt <= RECONNECT_ATTEMPTS; attempt++) {
+            int current = attempt;
+            SwingUtilities.invokeLater(() -> updateStatus("Ligação perdida. A retomar a sessão ("
+                    + current + "/" + RECONNECT_ATTEMPTS + ")..."));
+            try {
+                Thread.sleep(RECONNECT_DELAY_MS);
+                openConnection();
+                send(new ResumeMessage(gameId, teamId, username, sessionToken));
+                return true;
+            } catch (IOException e) {
+                // Servidor ainda inacessível - tentar de novo
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void readMessages() throws IOException {
+        while (true) {
+            Message obj = WireFormat.readFrame(in);
+            if (obj instanceof PingMessage) {
+                // Responder já, sem passar pela fila do Swing
+                send(new PongMessage(gameId, teamId, username, ((PingMessage) obj).getTimestamp()));
+                continue;
+            }
+            if (obj instanceof SessionMessage) {
+                sessionToken = ((SessionMessage) obj).getToken();
+                continue;
+            }
+            if (obj instanceof GameEndMessage) {
+                gameOver = true;
+            } else if (obj instanceof ErrorMessage && !((ErrorMessage) obj).getErrorMessage().startsWith("SUCCESS")) {
+                sessionToken = null; // inscrição ou sessão recusada: não tentar retomar
             }
-        } catch (IOException | ClassNotFoundException e) {
             SwingUtilities.invokeLater(() -> {
-                updateStatus("Conexão com o servidor perdida.");
+                try {
+                    if (obj instanceof QuestionMessage) {
+                        handleQuestionMessage((QuestionMessage) obj);
+                    } else if (obj instanceof ScoreMessage) {
+                        handleScoreMessage((ScoreMessage) obj);
+                    } else if (obj instanceof ScoreDeltaMessage) {
+                        handleScoreDeltaMessage((ScoreDeltaMessage) obj);
+                    } else if (obj instanceof GameEndMessage) {
+                        handleGameEndMessage((GameEndMessage) obj);
+                    } else if (obj instanceof ErrorMessage) {
+                        handleErrorMessage((ErrorMessage) obj);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
             });
         }
     }
 
+    // Escritas vêm da thread do Swing (respostas) e da thread de receção (pongs, retoma)
+    private void send(Message msg) throws IOException {
+        synchronized (writeLock) {
+            WireFormat.writeFrame(out, msg);
+        }
+    }
+
     private void handleQuestionMessage(QuestionMessage msg) {
         Question question = msg.getQuestion();
         currentQuestionIndex = msg.getQuestionIndex();
@@ -287,8 +361,7 @@ public class KahootClient {
             answerButtons[answerIndex].setBackground(answerButtons[answerIndex].getBackground().brighter());
 
             AnswerMessage answerMsg = new AnswerMessage(gameId, teamId, username, currentQuestionIndex, answerIndex);
-            out.writeObject(answerMsg);
-            out.flush();
+            send(answerMsg);
 
             updateStatus("Resposta enviada: " + (char)('A' + answerIndex));
 
@@ -297,12 +370,25 @@ public class KahootClient {
         }
     }
 
+    // Placar completo (ou só o top-K e a nossa equipa, em jogos grandes): substitui a cópia local
     private void handleScoreMessage(ScoreMessage msg) {
+        teamScores.clear();
+        teamScores.putAll(msg.getTeamScores());
+        showScores(msg.getQuestionIndex(), msg.getCurrentRoundPoints(), msg.getTeamRank(), msg.getPlayerRank());
+    }
+
+    // Só as equipas cuja pontuação mudou
+    private void handleScoreDeltaMessage(ScoreDeltaMessage msg) {
+        teamScores.putAll(msg.getChangedScores());
+        showScores(msg.getQuestionIndex(), msg.getRoundPoints(), msg.getTeamRank(), msg.getPlayerRank());
+    }
+
+    private void showScores(int questionIndex, int roundPoints, int teamRank, int playerRank) {
         StringBuilder sb = new StringBuilder();
-        sb.append("=== PLACAR - Ronda ").append(msg.getQuestionIndex() + 1).append(" ===\n\n");
+        sb.append("=== PLACAR - Ronda ").append(questionIndex + 1).append(" ===\n\n");
 
         // Ordenar equipas por pontuação
-        msg.getTeamScores().entrySet().stream()
+        teamScores.entrySet().stream()
                 .sorted((a, b) -> b.getValue().compareTo(a.getValue()))
                 .forEach(entry -> {
                     String teamDisplay = entry.getKey().equals(teamId) ?
@@ -310,12 +396,18 @@ public class KahootClient {
                     sb.append(String.format("%-15s: %3d pontos\n", teamDisplay, entry.getValue()));
                 });
 
-        sb.append("\nEsta ronda: +").append(msg.getCurrentRoundPoints()).append(" pontos");
+        sb.append("\nEsta ronda: +").append(roundPoints).append(" pontos");
+        if (teamRank > 0) {
+            sb.append("\nPosição da equipa: ").append(teamRank).append("º");
+        }
+        if (playerRank > 0) {
+            sb.append("\nA sua posição: ").append(playerRank).append("º");
+        }
 
         scoreboardArea.setText(sb.toString());
 
         // Atualizar pontuação atual se for da nossa equipa
-        Integer myScore = msg.getTeamScores().get(teamId);
+        Integer myScore = teamScores.get(teamId);
         if (myScore != null) {
             currentScore = myScore;
             scoreLabel.setText("Pontuação: " + currentScore);
@@ -1,48 +1,200 @@
 package kahoot.coordination;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+
+/**
+ * Contador decrescente com bónus para os primeiros bonusCount a chegar, sem locks.
+ * O contador é decrementado por CAS e cada chegada contada recebe um número de ordem
+ * atómico, por isso o k-ésimo countDown recebe bónus se k <= bonusCount. leave()
+ * decrementa sem ocupar um lugar de bónus (parte que deixou de contar). As threads
+ * em await() ficam numa pilha sem locks e são acordadas com LockSupport.
+ */
 public class ModifiedCountdownLatch {
-    private int count;
     private final int bonusFactor;
     private final int bonusCount;
-    private int currentBonus;
+    private volatile Phase phase;
+
+    // Marcadores das pilhas: contagem terminada / callbacks já disparados
+    private static final Node RELEASED = new Node(null, null);
+
+    // Lista ligada imutável usada como pilha (Treiber)
+    private static final class Node {
+        final Object item; // Thread em espera ou Runnable
+        final Node next;
+
+        Node(Object item, Node next) {
+            this.item = item;
+            this.next = next;
+        }
+    }
+
+    // Uma contagem (entre resets)
+    private static final class Phase {
+        final int parties;
+        final AtomicInteger remaining;
+        final AtomicInteger arrivals = new AtomicInteger(); // ordem de chegada dos countDown contados
+        final AtomicInteger settled = new AtomicInteger(); // countDowns cuja ação já terminou
+        final AtomicReference<Node> waiters;
+        final AtomicReference<Node> callbacks;
+
+        Phase(int parties) {
+            this.parties = parties;
+            this.remaining = new AtomicInteger(parties);
+            this.waiters = new AtomicReference<>(parties > 0 ? null : RELEASED);
+            this.callbacks = new AtomicReference<>(parties > 0 ? null : RELEASED);
+        }
+    }
 
     public ModifiedCountdownLatch(int bonusFactor, int bonusCount, int count) {
         this.bonusFactor = bonusFactor;
         this.bonusCount = bonusCount;
-        this.count = count;
-        this.currentBonus = 0;
+        this.phase = new Phase(count);
     }
 
-    public synchronized int countDown() {
-        if (count <= 0) {
-            return 1; // Sem bónus
-        }
+    public int countDown() {
+        return countDown(bonus -> {});
+    }
 
-        count--;
-        int bonus = 1; // Sem bónus por padrão
-        if (currentBonus < bonusCount) {
-            currentBonus++;
-            bonus = bonusFactor; // Bónus para os primeiros
+    /**
+     * countDown() seguido de uma ação com o bónus atribuído (ex.: somar os pontos).
+     * Os callbacks de onComplete só correm depois de terminarem as ações de todos,
+     * na thread que terminar a última.
+     */
+    public int countDown(IntConsumer action) {
+        Phase p = phase;
+        int bonus = arrive(p);
+        boolean counted = bonus != 0;
+        if (!counted) {
+            bonus = 1; // Sem bónus
         }
-        
-        // Quando o contador chegar a zero, desbloquear todas as threads em await()
-        if (count == 0) {
-            notifyAll();
+        try {
+            action.accept(bonus);
+        } finally {
+            if (counted && p.settled.incrementAndGet() == p.parties) {
+                runCallbacks(p);
+            }
         }
-        
         return bonus;
     }
 
-    public synchronized void await() throws InterruptedException {
-        while (count > 0) {
-            wait();
+    // Devolve o bónus, ou 0 se o contador já estava a zero
+    private int arrive(Phase p) {
+        while (true) {
+            int current = p.remaining.get();
+            if (current <= 0) {
+                return 0;
+            }
+            if (p.remaining.compareAndSet(current, current - 1)) {
+                int order = p.arrivals.getAndIncrement(); // 0 = primeiro a chegar
+                if (current == 1) {
+                    // Contador chegou a zero: desbloquear todas as threads em await()
+                    releaseWaiters(p);
+                }
+                return order < bonusCount ? bonusFactor : 1; // Bónus para os primeiros
+            }
         }
     }
 
-    // Reset para nova pergunta
-    public synchronized void reset(int newCount) {
-        this.count = newCount;
-        this.currentBonus = 0;
-        notifyAll(); // Acordar threads que possam estar esperando
+    /**
+     * Parte que deixa de contar (ex.: jogador desligado antes de responder): decrementa
+     * o contador sem bónus nem ação. Devolve false se o contador já estava a zero.
+     */
+    public boolean leave() {
+        Phase p = phase;
+        while (true) {
+            int current = p.remaining.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (p.remaining.compareAndSet(current, current - 1)) {
+                if (current == 1) {
+                    releaseWaiters(p);
+                }
+                if (p.settled.incrementAndGet() == p.parties) {
+                    runCallbacks(p);
+                }
+                return true;
+            }
+        }
+    }
+
+    // Corre o callback quando todos tiverem contado (imediatamente se já aconteceu) - alternativa a await()
+    public void onComplete(Runnable callback) {
+        Phase p = phase;
+        while (true) {
+            Node head = p.callbacks.get();
+            if (head == RELEASED) {
+                callback.run();
+                return;
+            }
+            if (p.callbacks.compareAndSet(head, new Node(callback, head))) {
+                return;
+            }
+        }
+    }
+
+    public CompletableFuture<Void> toCompletableFuture() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        onComplete(() -> future.complete(null));
+        return future;
+    }
+
+    public void await() throws InterruptedException {
+        Thread current = Thread.currentThread();
+        while (true) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Phase p = phase;
+            if (p.remaining.get() <= 0) {
+                return;
+            }
+            Node head = p.waiters.get();
+            if (head == RELEASED || !p.waiters.compareAndSet(head, new Node(current, head))) {
+                continue; // voltar a verificar
+            }
+            // Acordado por releaseWaiters/reset, ou espúrio: o ciclo volta a verificar
+            while (p.waiters.get() != RELEASED && phase == p) {
+                LockSupport.park(this);
+                if (current.isInterrupted()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // Reset para nova pergunta (callbacks ainda pendentes da contagem anterior são descartados)
+    public void reset(int newCount) {
+        Phase old = phase;
+        phase = new Phase(newCount);
+        // Acordar threads que possam estar esperando - voltam a esperar na nova contagem
+        releaseWaiters(old);
+        old.callbacks.set(RELEASED);
+    }
+
+    private static void releaseWaiters(Phase p) {
+        Node node = p.waiters.getAndSet(RELEASED);
+        for (; node != null && node != RELEASED; node = node.next) {
+            LockSupport.unpark((Thread) node.item);
+        }
+    }
+
+    private static void runCallbacks(Phase p) {
+        Node node = p.callbacks.getAndSet(RELEASED);
+        if (node == RELEASED) {
+            return;
+        }
+        // A pilha tem a ordem inversa do registo
+        Node reversed = null;
+        for (; node != null; node = node.next) {
+            reversed = new Node(node.item, reversed);
+        }
+        for (; reversed != null; reversed = reversed.next) {
+            ((Runnable) reversed.item).run();
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,14 @@
 package kahoot.coordination;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class TeamBarrier {
     private final int teamSize;
+    private int parties; // membros esperados na geração atual (teamSize menos os que saíram)
     private int arrived;
     private boolean broken;
     private final Lock lock;
@@ -13,9 +16,30 @@ public class TeamBarrier {
     private final int timeout;
     private long startTime;
     private int generation; // Geração da barreira - incrementa a cada reset
+    private final TimerWheel timers; // só no modo assíncrono
+    private final Executor timeoutActions; // onde corre a ação quando o tempo acaba
+    private Runnable onTrip; // modo assíncrono: ação da geração atual (null depois de disparada)
+    private TimerWheel.Timeout timeoutTask;
 
     public TeamBarrier(int teamSize, int timeout) {
+        this(teamSize, timeout, null);
+    }
+
+    /**
+     * Com um temporizador a barreira pode ser usada sem bloquear: reset(onTrip) define a ação
+     * da geração, arrive() regista a chegada e a ação corre uma vez, na thread do último
+     * jogador a chegar ou na do temporizador quando o tempo acaba (se alguém chegou).
+     */
+    public TeamBarrier(int teamSize, int timeout, TimerWheel timers) {
+        this(teamSize, timeout, timers, Runnable::run);
+    }
+
+    // Como acima, mas a ação do fim do tempo é entregue a timeoutActions em vez de correr no temporizador
+    public TeamBarrier(int teamSize, int timeout, TimerWheel timers, Executor timeoutActions) {
+        this.timers = timers;
+        this.timeoutActions = timeoutActions;
         this.teamSize = teamSize;
+        this.parties = teamSize;
         this.arrived = 0;
         this.broken = false;
         this.lock = new ReentrantLock();
@@ -38,14 +62,14 @@ public class TeamBarrier {
             arrived++;
             int position = arrived;
 
-            if (arrived == teamSize) {
+            if (arrived == parties) {
                 // Último jogador chegou - acordar todos
                 condition.signalAll();
                 return position;
             }
 
             // Esperar pelos outros jogadores
-            while (arrived < teamSize && !broken && savedGeneration == generation) {
+            while (arrived < parties && !broken && savedGeneration == generation) {
                 long elapsed = System.currentTimeMillis() - startTime;
                 long remaining = timeout - elapsed;
 
@@ -65,7 +89,7 @@ public class TeamBarrier {
                         return -1;
                     }
                     
-                    if (timedOut && arrived < teamSize) {
+                    if (timedOut && arrived < parties) {
                         broken = true;
                         condition.signalAll();
                         break;
@@ -91,28 +115,151 @@ public class TeamBarrier {
     }
 
     public void reset() {
+        reset(null);
+    }
+
+    // Nova geração; no modo assíncrono devolve a geração a passar a arrive()
+    public int reset(Runnable action) {
+        return reset(action, teamSize);
+    }
+
+    // Nova geração em que só parties membros contam (ex.: só os jogadores ligados)
+    public int reset(Runnable action, int parties) {
         lock.lock();
         try {
             // Incrementar geração para invalidar threads antigas
             generation++;
+            this.parties = Math.min(parties, teamSize);
             arrived = 0;
             broken = false;
             startTime = System.currentTimeMillis();
             // NÃO chamar signalAll aqui - threads antigas verificam geração e saem naturalmente
             // Threads novas (da nova pergunta) usarão a nova geração
+            onTrip = action;
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
+                timeoutTask = null;
+            }
+            if (action != null) {
+                if (timers == null) {
+                    throw new IllegalStateException("Modo assíncrono requer um temporizador");
+                }
+                int expected = generation;
+                timeoutTask = timers.schedule(() -> expire(expected), timeout, TimeUnit.MILLISECONDS);
+            }
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Chegada sem bloquear (modo assíncrono). Devolve a posição de chegada, ou -1 se a
+     * barreira já foi quebrada ou a geração já não é a indicada (resposta atrasada).
+     * A última chegada corre a ação da geração antes de retornar.
+     */
+    public int arrive(int expectedGeneration) {
+        Runnable action = null;
+        int position;
+        lock.lock();
+        try {
+            if (broken || expectedGeneration != generation || arrived >= parties) {
+                return -1;
+            }
+            arrived++;
+            position = arrived;
+            if (arrived == parties) {
+                action = takeAction();
+                condition.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (action != null) {
+            action.run();
+        }
+        return position;
+    }
+
+    /**
+     * Membro que deixa de contar nesta geração (ex.: desligou-se sem responder). Se os
+     * restantes já chegaram - ou não resta nenhum - corre a ação da geração. Devolve
+     * false se a geração já mudou, a barreira foi quebrada ou já não havia lugares.
+     */
+    public boolean leave(int expectedGeneration) {
+        Runnable action = null;
+        lock.lock();
+        try {
+            if (broken || expectedGeneration != generation || arrived >= parties) {
+                return false;
+            }
+            parties--;
+            if (arrived == parties) {
+                action = takeAction();
+                condition.signalAll();
+            }
         } finally {
             lock.unlock();
         }
+        if (action != null) {
+            action.run();
+        }
+        return true;
     }
-    
+
+    // Tempo esgotado: quebra a barreira e, se alguém chegou, corre a ação com a equipa incompleta
+    private void expire(int expectedGeneration) {
+        Runnable action;
+        lock.lock();
+        try {
+            if (expectedGeneration != generation || broken) {
+                return;
+            }
+            action = breakLocked();
+        } finally {
+            lock.unlock();
+        }
+        if (action != null) {
+            timeoutActions.execute(action);
+        }
+    }
+
     public void breakBarrier() {
+        breakBarrier(-1);
+    }
+
+    // Só quebra se a barreira ainda estiver na geração indicada (-1 = qualquer)
+    public void breakBarrier(int expectedGeneration) {
+        Runnable action;
         lock.lock();
         try {
-            broken = true;
-            condition.signalAll(); // Acordar todas as threads bloqueadas
+            if (expectedGeneration != -1 && expectedGeneration != generation) {
+                return;
+            }
+            action = breakLocked();
         } finally {
             lock.unlock();
         }
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    private Runnable breakLocked() {
+        broken = true;
+        condition.signalAll(); // Acordar todas as threads bloqueadas
+        return arrived > 0 && arrived < parties ? takeAction() : null;
+    }
+
+    // A ação corre no máximo uma vez por geração
+    private Runnable takeAction() {
+        Runnable action = onTrip;
+        onTrip = null;
+        if (timeoutTask != null) {
+            timeoutTask.cancel();
+            timeoutTask = null;
+        }
+        return action;
     }
 
     public boolean isBroken() {
@@ -0,0 +1,238 @@
+package kahoot.coordination;
+
+import kahoot.log.Log;
+import kahoot.metrics.LatencyHistogram;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Temporizador partilhado (hashed timing wheel) com uma única thread para todos os jogos:
+ * prazos das perguntas, timeouts das barreiras, limpeza de jogos.
+ *
+ * A roda tem wheelSize posições de tickMillis cada. Agendar e cancelar são O(1):
+ * o pedido entra numa fila sem locks e a thread da roda coloca-o (ou retira-o) da
+ * posição certa no tick seguinte. Prazos maiores do que uma volta guardam o número
+ * de voltas que faltam. As tarefas correm na thread da roda, por isso devem ser
+ * curtas e nunca bloquear.
+ */
+public class TimerWheel {
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pending;
+    private final Queue<Timeout> cancelled;
+    private final String name;
+    private Thread worker; // criada em start()
+    private final long startTime;
+    private volatile boolean running;
+    private long tick; // só a thread da roda
+
+    private final LongAdder scheduledCount = new LongAdder();
+    private final LongAdder firedCount = new LongAdder();
+    private final LongAdder cancelledCount = new LongAdder();
+    private final LatencyHistogram jitter = new LatencyHistogram(); // atraso no disparo
+
+    /**
+     * Tarefa agendada. cancel() é O(1) e pode ser chamado de qualquer thread;
+     * devolve false se a tarefa já correu ou já tinha sido cancelada.
+     */
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final TimerWheel owner;
+        private final Runnable task;
+        private final long deadline; // nanos desde o arranque da roda
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(TimerWheel owner, Runnable task, long deadline) {
+            this.owner = owner;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            owner.cancelledCount.increment();
+            owner.cancelled.add(this); // retirado da posição pela thread da roda
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    // Lista duplamente ligada de uma posição da roda (só a thread da roda lhe toca)
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    public TimerWheel(String name, long tickMillis, int wheelSize) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("Tick deve ser positivo");
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1; // potência de 2
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.cancelled = new ConcurrentLinkedQueue<>();
+        this.startTime = System.nanoTime();
+        this.running = true;
+        this.name = name;
+    }
+
+    // Arranca a thread da roda; as tarefas agendadas antes disso esperam pelo primeiro tick
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() - startTime + Math.max(0, unit.toNanos(delay));
+        Timeout timeout = new Timeout(this, task, deadline);
+        scheduledCount.increment();
+        pending.add(timeout);
+        return timeout;
+    }
+
+    public synchronized void shutdown() {
+        running = false;
+        if (worker != null) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = (tick + 1) * tickNanos;
+            long now;
+            while ((now = System.nanoTime() - startTime) < deadline && running) {
+                LockSupport.parkNanos(this, deadline - now);
+            }
+            if (!running) {
+                break;
+            }
+            removeCancelled();
+            transferPending();
+            expire(wheel[(int) (tick & mask)], now);
+            tick++;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.state.get() != Timeout.PENDING) {
+                continue; // cancelado antes de entrar na roda
+            }
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            long ticks = Math.max(calculated, tick); // prazo já passado: corre neste tick
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Bucket bucket, long now) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.remainingRounds <= 0) {
+                bucket.remove(timeout);
+                if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+                    recordJitter(Math.max(0, now - timeout.deadline));
+                    try {
+                        timeout.task.run();
+                    } catch (Throwable t) {
+                        Log.error("Erro numa tarefa do temporizador", t);
+                    }
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    private void recordJitter(long nanos) {
+        firedCount.increment();
+        jitter.record(nanos);
+    }
+
+    // Atraso (µs) abaixo do qual ficam pelo menos percentile% dos disparos
+    public long jitterPercentileMicros(double percentile) {
+        return jitter.getPercentileNanos(percentile) / 1000;
+    }
+
+    public LatencyHistogram getJitterHistogram() {
+        return jitter;
+    }
+
+    public long getTickMillis() { return TimeUnit.NANOSECONDS.toMillis(tickNanos); }
+    public int getWheelSize() { return wheel.length; }
+    public long getScheduledCount() { return scheduledCount.sum(); }
+    public long getFiredCount() { return firedCount.sum(); }
+    public long getCancelledCount() { return cancelledCount.sum(); }
+    public long getPendingCount() { return scheduledCount.sum() - firedCount.sum() - cancelledCount.sum(); }
+    public long getMaxJitterMicros() { return jitter.getMaxNanos() / 1000; }
+    public long getMeanJitterMicros() { return jitter.getMeanNanos() / 1000; }
+}
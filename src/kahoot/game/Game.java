@@ -1,7 +1,9 @@
 package kahoot.game;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.io.IOException;
 
@@ -10,18 +12,28 @@ public class Game implements Serializable {
     private final int numTeams;
     private final int playersPerTeam;
     private final int numQuestions;
+    private final String quizName; // null = primeiro quiz do catálogo
     private final Quiz quiz;
     private final Map<String, Team> teams;
+    private final Map<String, Player> playersByName; // username -> jogador
+    private final List<Player> playersBySlot; // slot -> jogador
     private int currentQuestionIndex;
     private boolean gameStarted;
     private boolean gameEnded;
 
     public Game(String gameId, int numTeams, int playersPerTeam, int numQuestions) {
+        this(gameId, numTeams, playersPerTeam, numQuestions, null);
+    }
+
+    public Game(String gameId, int numTeams, int playersPerTeam, int numQuestions, String quizName) {
         this.gameId = gameId;
+        this.quizName = quizName;
         this.numTeams = numTeams;
         this.playersPerTeam = playersPerTeam;
         this.numQuestions = numQuestions;
         this.teams = new HashMap<>();
+        this.playersByName = new HashMap<>();
+        this.playersBySlot = new ArrayList<>();
         this.quiz = createQuiz();
         this.currentQuestionIndex = 0;
         this.gameStarted = false;
@@ -35,8 +47,12 @@ public class Game implements Serializable {
 
     private Quiz createQuiz() {
         try {
-            // FASE 3: Carregar perguntas aleatórias do JSON
-            Quiz quiz = Quiz.loadFromJson("quizzes.json", this.numQuestions);
+            // FASE 3: Perguntas aleatórias do catálogo (o JSON só é lido no primeiro jogo ou quando muda)
+            // ou, com -Dkahoot.quiz.bank=<ficheiro>, de um banco pré-compilado (QuizBankCompiler)
+            String bank = System.getProperty("kahoot.quiz.bank");
+            Quiz quiz = bank != null
+                    ? newQuizFromBank(QuizBank.shared(bank))
+                    : QuizCatalog.forFile("quizzes.json").newQuiz(quizName, this.numQuestions);
 
             // Opcional: mostrar perguntas selecionadas (debug)
             quiz.printSelectedQuestions();
@@ -53,37 +69,46 @@ public class Game implements Serializable {
         }
     }
 
+    // Sem quiz indicado usa o primeiro do banco, como o catálogo JSON faz com o primeiro do ficheiro
+    private Quiz newQuizFromBank(QuizBank bank) throws IOException {
+        String name = quizName != null ? quizName : bank.getQuizNames().get(0);
+        return bank.newQuiz(new QuizBank.Filter().quiz(name), this.numQuestions);
+    }
+
     public boolean addPlayer(String teamId, String username) {
+        if (username == null || username.isEmpty()) {
+            return false;
+        }
         Team team = teams.get(teamId);
         if (team == null || team.getPlayerCount() >= playersPerTeam) {
             return false;
         }
 
-        // Verificar se username já existe
-        for (Team t : teams.values()) {
-            for (Player p : t.getPlayers()) {
-                if (p.getUsername().equals(username)) {
-                    return false;
-                }
-            }
+        // Verificar se username já existe - O(1) pelo índice de jogadores
+        if (playersByName.containsKey(username)) {
+            return false;
         }
 
-        team.addPlayer(new Player(username, teamId));
+        // Slots densos pela ordem de inscrição - permitem guardar respostas em arrays
+        Player player = new Player(username, teamId, playersBySlot.size());
+        team.addPlayer(player);
+        playersByName.put(username, player);
+        playersBySlot.add(player);
         return true;
     }
 
+    // Nenhuma equipa aceita mais do que playersPerTeam, logo o total basta para saber se estão todas cheias
     public boolean canStartGame() {
-        for (Team team : teams.values()) {
-            if (team.getPlayerCount() < playersPerTeam) {
-                return false;
-            }
-        }
-        return true;
+        return playersBySlot.size() == numTeams * playersPerTeam;
     }
 
     // Getters
     public String getGameId() { return gameId; }
     public Map<String, Team> getTeams() { return teams; }
+    public Team getTeam(String teamId) { return teams.get(teamId); }
+    public Player getPlayer(String username) { return playersByName.get(username); }
+    public Player getPlayerBySlot(int slot) { return playersBySlot.get(slot); }
+    public int getTotalPlayers() { return playersBySlot.size(); }
     public Quiz getQuiz() { return quiz; }
     public int getCurrentQuestionIndex() { return currentQuestionIndex; }
     public boolean isGameStarted() { return gameStarted; }
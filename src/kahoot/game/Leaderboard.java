@@ -0,0 +1,269 @@
+package kahoot.game;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Classificação mantida incrementalmente numa árvore ordenada (treap com o tamanho de
+ * cada subárvore): top-K em O(log n + K) e posição de uma equipa/jogador em O(log n),
+ * sem ordenar todos no fim de cada ronda. Ordem: pontuação decrescente e, em empate,
+ * id crescente. A posição é a de competição - empatados partilham a posição (1, 2, 2, 4...).
+ *
+ * Cada entrada lê a pontuação da sua fonte (ex.: Player::getScore). changed() só marca
+ * a entrada, sem lock, para o caminho das respostas não disputar a árvore; as entradas
+ * marcadas são reposicionadas (O(log n) cada) na consulta seguinte.
+ */
+public class Leaderboard {
+    public record Entry(String id, int score) {}
+
+    private static final class Node {
+        final String id;
+        final IntSupplier source;
+        final int priority;
+        final AtomicBoolean dirty = new AtomicBoolean(); // já está em pending
+        int score; // valor com que está na árvore; só muda com o nó fora dela
+        Node left;
+        Node right;
+        int size = 1; // nós nesta subárvore
+
+        Node(String id, IntSupplier source, int priority) {
+            this.id = id;
+            this.source = source;
+            this.priority = priority;
+        }
+    }
+
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+    private final Queue<Node> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+
+    // Acrescenta uma entrada (ou substitui a fonte de uma existente) com a pontuação atual
+    public void track(String id, IntSupplier score) {
+        lock.writeLock().lock();
+        try {
+            Node old = nodes.get(id);
+            if (old != null) {
+                root = remove(root, old);
+            }
+            Node node = new Node(id, score, ThreadLocalRandom.current().nextInt());
+            node.score = score.getAsInt();
+            nodes.put(id, node);
+            root = insert(root, node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Node node = nodes.remove(id);
+            if (node != null) {
+                root = remove(root, node);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A pontuação de id mudou. Quem a muda fá-lo antes (numa variável atómica); se a
+     * entrada já está marcada, a leitura em apply() vem depois de desmarcar e por isso
+     * já vê o valor novo.
+     */
+    public void changed(String id) {
+        Node node = nodes.get(id);
+        if (node != null && !node.dirty.get() && node.dirty.compareAndSet(false, true)) {
+            pending.add(node);
+        }
+    }
+
+    // As k primeiras entradas, por ordem
+    public List<Entry> top(int k) {
+        apply();
+        lock.readLock().lock();
+        try {
+            List<Entry> result = new ArrayList<>(Math.min(k, nodes.size()));
+            Deque<Node> path = new ArrayDeque<>();
+            Node node = root;
+            while (result.size() < k && (node != null || !path.isEmpty())) {
+                while (node != null) {
+                    path.push(node);
+                    node = node.left;
+                }
+                node = path.pop();
+                result.add(new Entry(node.id, node.score));
+                node = node.right;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 1 + nº de entradas com mais pontos; 0 se o id não está na classificação
+    public int rank(String id) {
+        apply();
+        lock.readLock().lock();
+        try {
+            Node target = nodes.get(id);
+            return target == null ? 0 : countAbove(target.score) + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Posição que teria uma entrada com esta pontuação (igual para todos os empatados)
+    public int rankOf(int score) {
+        apply();
+        lock.readLock().lock();
+        try {
+            return countAbove(score) + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    // Reposiciona as entradas marcadas por changed()
+    private void apply() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Node node;
+            while ((node = pending.poll()) != null) {
+                node.dirty.set(false); // antes de ler: uma mudança a seguir volta a marcá-la
+                if (nodes.get(node.id) != node) {
+                    continue; // removida (ou substituída) depois de marcada
+                }
+                int value = node.source.getAsInt();
+                if (value != node.score) {
+                    root = remove(root, node);
+                    node.left = node.right = null;
+                    node.size = 1;
+                    node.score = value;
+                    root = insert(root, node);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int countAbove(int score) {
+        int above = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.score > score) {
+                above += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return above;
+    }
+
+    // Negativo se a entrada a vem antes de b
+    private static int compare(Node a, Node b) {
+        if (a.score != b.score) {
+            return a.score > b.score ? -1 : 1;
+        }
+        return a.id.compareTo(b.id);
+    }
+
+    private static Node insert(Node tree, Node node) {
+        if (tree == null) {
+            return node;
+        }
+        if (compare(node, tree) < 0) {
+            tree.left = insert(tree.left, node);
+            if (tree.left.priority > tree.priority) {
+                tree = rotateRight(tree);
+            }
+        } else {
+            tree.right = insert(tree.right, node);
+            if (tree.right.priority > tree.priority) {
+                tree = rotateLeft(tree);
+            }
+        }
+        resize(tree);
+        return tree;
+    }
+
+    private static Node remove(Node tree, Node node) {
+        if (tree == null) {
+            return null;
+        }
+        if (tree == node) {
+            return merge(tree.left, tree.right);
+        }
+        if (compare(node, tree) < 0) {
+            tree.left = remove(tree.left, node);
+        } else {
+            tree.right = remove(tree.right, node);
+        }
+        resize(tree);
+        return tree;
+    }
+
+    // Junta duas subárvores em que todas as entradas de a vêm antes das de b
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            resize(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        resize(b);
+        return b;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        resize(node);
+        resize(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        resize(node);
+        resize(right);
+        return right;
+    }
+
+    private static void resize(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
@@ -1,24 +1,28 @@
 package kahoot.game;
 
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Player implements Serializable {
     private final String username;
     private final String teamId;
-    private int score;
+    private final int slot; // índice denso do jogador no jogo (0..N-1)
+    private final AtomicInteger score;
 
-    public Player(String username, String teamId) {
+    public Player(String username, String teamId, int slot) {
         this.username = username;
         this.teamId = teamId;
-        this.score = 0;
+        this.slot = slot;
+        this.score = new AtomicInteger(0);
     }
 
     public String getUsername() { return username; }
     public String getTeamId() { return teamId; }
-    public int getScore() { return score; }
-    
-    // Thread-safe: usando synchronized para evitar race conditions
-    public synchronized void addScore(int points) { 
-        this.score += points; 
+    public int getSlot() { return slot; }
+    public int getScore() { return score.get(); }
+
+    // Thread-safe sem lock: vários jogadores da mesma equipa podem pontuar em paralelo
+    public void addScore(int points) {
+        score.addAndGet(points);
     }
 }
\ No newline at end of file
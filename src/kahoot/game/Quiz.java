@@ -3,6 +3,7 @@ package kahoot.game;
 import java.io.Serializable;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -14,7 +15,7 @@ import com.google.gson.JsonElement;
 
 public class Quiz implements Serializable {
     private final String name;
-    private final List<Question> questions;
+    private List<Question> questions;
     private int currentQuestion;
     private final Random random;
 
@@ -40,26 +41,7 @@ public class Quiz implements Serializable {
             String quizName = firstQuiz.get("name").getAsString();
 
             // Carregar todas as perguntas
-            JsonArray questionsArray = firstQuiz.getAsJsonArray("questions");
-            List<Question> allQuestions = new ArrayList<>();
-
-            for (JsonElement questionElement : questionsArray) {
-                JsonObject questionObj = questionElement.getAsJsonObject();
-
-                String questionText = questionObj.get("question").getAsString();
-                int points = questionObj.get("points").getAsInt();
-                int correct = questionObj.get("correct").getAsInt();
-
-                // Carregar opções
-                JsonArray optionsArray = questionObj.getAsJsonArray("options");
-                String[] options = new String[optionsArray.size()];
-                for (int i = 0; i < optionsArray.size(); i++) {
-                    options[i] = optionsArray.get(i).getAsString();
-                }
-
-                Question question = new Question(questionText, options, correct, points);
-                allQuestions.add(question);
-            }
+            List<Question> allQuestions = readQuestions(firstQuiz.getAsJsonArray("questions"));
 
             // 🔄 SELEÇÃO ALEATÓRIA de perguntas
             List<Question> selectedQuestions = selectRandomQuestions(allQuestions, numQuestions);
@@ -75,6 +57,37 @@ public class Quiz implements Serializable {
         }
     }
 
+    /**
+     * Versão em streaming para ficheiros grandes: uma passagem com JsonReader e
+     * reservoir sampling, sem carregar o documento inteiro (ver QuizStreamLoader)
+     */
+    public static Quiz loadFromJsonStreaming(String filename, int numQuestions, boolean mapped) throws IOException {
+        return QuizStreamLoader.load(Paths.get(filename), numQuestions, mapped);
+    }
+
+    // Converte o array "questions" de um quiz em perguntas (usado também pelo QuizCatalog)
+    static List<Question> readQuestions(JsonArray questionsArray) {
+        List<Question> questions = new ArrayList<>(questionsArray.size());
+
+        for (JsonElement questionElement : questionsArray) {
+            JsonObject questionObj = questionElement.getAsJsonObject();
+
+            String questionText = questionObj.get("question").getAsString();
+            int points = questionObj.get("points").getAsInt();
+            int correct = questionObj.get("correct").getAsInt();
+
+            // Carregar opções
+            JsonArray optionsArray = questionObj.getAsJsonArray("options");
+            String[] options = new String[optionsArray.size()];
+            for (int i = 0; i < optionsArray.size(); i++) {
+                options[i] = optionsArray.get(i).getAsString();
+            }
+
+            questions.add(new Question(questionText, options, correct, points));
+        }
+        return questions;
+    }
+
     /**
      * Seleciona N perguntas aleatórias da lista completa
      */
@@ -108,25 +121,7 @@ public class Quiz implements Serializable {
             String quizName = firstQuiz.get("name").getAsString();
 
             // Carregar todas as perguntas
-            JsonArray questionsArray = firstQuiz.getAsJsonArray("questions");
-            List<Question> allQuestions = new ArrayList<>();
-
-            for (JsonElement questionElement : questionsArray) {
-                JsonObject questionObj = questionElement.getAsJsonObject();
-
-                String questionText = questionObj.get("question").getAsString();
-                int points = questionObj.get("points").getAsInt();
-                int correct = questionObj.get("correct").getAsInt();
-
-                JsonArray optionsArray = questionObj.getAsJsonArray("options");
-                String[] options = new String[optionsArray.size()];
-                for (int i = 0; i < optionsArray.size(); i++) {
-                    options[i] = optionsArray.get(i).getAsString();
-                }
-
-                Question question = new Question(questionText, options, correct, points);
-                allQuestions.add(question);
-            }
+            List<Question> allQuestions = readQuestions(firstQuiz.getAsJsonArray("questions"));
 
             // 🔄 SELEÇÃO ALEATÓRIA BALANCEADA
             List<Question> selectedQuestions = selectBalancedRandomQuestions(allQuestions, numQuestions);
@@ -157,6 +152,10 @@ public class Quiz implements Serializable {
     }
 
     public void addQuestion(Question question) {
+        if (!(questions instanceof ArrayList)) {
+            // Vistas partilhadas do catálogo são só de leitura: copiar só quando se acrescenta
+            questions = new ArrayList<>(questions);
+        }
         questions.add(question);
     }
 
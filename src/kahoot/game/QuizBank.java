@@ -0,0 +1,344 @@
+package kahoot.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Banco de perguntas pré-compilado (ver QuizBankCompiler), aberto com memory-mapping.
+ * Só as perguntas escolhidas são desserializadas; a filtragem usa os índices.
+ *
+ * Formato (inteiros big-endian, strings = [short tamanho][UTF-8]):
+ *   cabeçalho   magic, versão, nº perguntas, nº quizzes, offsets das secções seguintes
+ *   registos    por pergunta: [texto][nº opções (byte)][opções...][correta (byte)][pontos]
+ *   índice      por pergunta: offset do registo (int)
+ *   atributos   por pergunta: [quiz (short)][nº opções (byte)][0][pontos (int)]
+ *   quizzes     por quiz: [primeira pergunta][nº perguntas][nome]
+ *   por pontos  [nº chaves][(pontos, início, n)...][ids ordenados por pontos]
+ *   por opções  [nº chaves][(nº opções, início, n)...][ids ordenados por nº opções]
+ */
+public class QuizBank {
+    static final int MAGIC = 0x4B514231; // "KQB1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    private static final int ATTR_SIZE = 8;
+    private static final int REJECTION_ATTEMPTS = 16; // tentativas por pergunta antes de percorrer os candidatos
+
+    private static final Map<String, QuizBank> banks = new ConcurrentHashMap<>();
+
+    private final ByteBuffer data; // só leituras absolutas: partilhável entre threads
+    private final int questionCount;
+    private final int indexOffset;
+    private final int attrsOffset;
+    private final List<String> quizNames;
+    private final Map<String, int[]> quizRanges; // nome -> {primeira pergunta, nº perguntas}
+    private final Postings byPoints;
+    private final Postings byOptions;
+
+    /**
+     * Critérios de seleção; campos não definidos não filtram.
+     * Exemplo: new QuizBank.Filter().quiz("PCD-1").points(5, 10).options(4)
+     */
+    public static final class Filter {
+        private String quiz;
+        private int minPoints = Integer.MIN_VALUE;
+        private int maxPoints = Integer.MAX_VALUE;
+        private int options = -1;
+
+        public Filter quiz(String quizName) {
+            this.quiz = quizName;
+            return this;
+        }
+
+        public Filter points(int min, int max) {
+            this.minPoints = min;
+            this.maxPoints = max;
+            return this;
+        }
+
+        public Filter options(int optionCount) {
+            this.options = optionCount;
+            return this;
+        }
+    }
+
+    // Candidatos [start, start+length) de uma lista de ids ordenada (idsOffset) ou, se idsOffset < 0, os próprios ids
+    private record Range(int idsOffset, int start, int length) {}
+
+    private final class Postings {
+        final int[] keys;
+        final int[] starts;
+        final int[] counts;
+        final int idsOffset;
+
+        Postings(int offset) {
+            int n = data.getInt(offset);
+            keys = new int[n];
+            starts = new int[n];
+            counts = new int[n];
+            for (int i = 0; i < n; i++) {
+                int entry = offset + 4 + i * 12;
+                keys[i] = data.getInt(entry);
+                starts[i] = data.getInt(entry + 4);
+                counts[i] = data.getInt(entry + 8);
+            }
+            idsOffset = offset + 4 + n * 12;
+        }
+
+        // Perguntas com chave em [min, max] - contíguas porque a lista está ordenada pela chave
+        Range range(int min, int max) {
+            int from = lowerBound(min);
+            int to = max == Integer.MAX_VALUE ? keys.length : lowerBound(max + 1);
+            if (from >= to) {
+                return new Range(idsOffset, 0, 0);
+            }
+            int start = starts[from];
+            int end = starts[to - 1] + counts[to - 1];
+            return new Range(idsOffset, start, end - start);
+        }
+
+        private int lowerBound(int key) {
+            int lo = 0;
+            int hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid] < key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    private QuizBank(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("Ficheiro não é um banco de perguntas");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException("Versão do banco não suportada: " + data.getInt(4));
+        }
+        this.questionCount = data.getInt(8);
+        int quizCount = data.getInt(12);
+        this.indexOffset = data.getInt(20);
+        this.attrsOffset = data.getInt(24);
+        int quizTableOffset = data.getInt(28);
+        this.byPoints = new Postings(data.getInt(32));
+        this.byOptions = new Postings(data.getInt(36));
+
+        // A tabela de quizzes é pequena: fica em memória
+        List<String> names = new ArrayList<>(quizCount);
+        Map<String, int[]> ranges = new HashMap<>();
+        int pos = quizTableOffset;
+        for (int q = 0; q < quizCount; q++) {
+            int first = data.getInt(pos);
+            int n = data.getInt(pos + 4);
+            String name = readString(pos + 8);
+            pos += 10 + (data.getShort(pos + 8) & 0xFFFF);
+            names.add(name);
+            ranges.put(name, new int[] {first, n});
+        }
+        this.quizNames = Collections.unmodifiableList(names);
+        this.quizRanges = ranges;
+    }
+
+    public static QuizBank open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Banco com mais de 2 GB não suportado");
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new QuizBank(data);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Banco de perguntas corrompido: " + file, e);
+        }
+    }
+
+    // Um banco por ficheiro, aberto uma vez e partilhado
+    public static QuizBank shared(String filename) throws IOException {
+        QuizBank bank = banks.get(filename);
+        if (bank == null) {
+            synchronized (banks) {
+                bank = banks.get(filename);
+                if (bank == null) {
+                    bank = open(Paths.get(filename));
+                    banks.put(filename, bank);
+                }
+            }
+        }
+        return bank;
+    }
+
+    // Quiz com até numQuestions perguntas aleatórias que satisfazem o filtro
+    public Quiz newQuiz(Filter filter, int numQuestions) throws IOException {
+        int[] ids = select(filter, numQuestions);
+        List<Question> questions = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            questions.add(readQuestion(id));
+        }
+        String name = filter.quiz != null ? filter.quiz : (quizNames.size() == 1 ? quizNames.get(0) : "Banco");
+        return new Quiz(name, questions);
+    }
+
+    // Ids de até k perguntas aleatórias que satisfazem o filtro, por ordem aleatória
+    int[] select(Filter filter, int k) throws IOException {
+        // Candidatos: o intervalo mais curto entre os índices aplicáveis
+        Range candidates = new Range(-1, 0, questionCount);
+        if (filter.quiz != null) {
+            int[] range = quizRanges.get(filter.quiz);
+            if (range == null) {
+                throw new IOException("Quiz desconhecido: " + filter.quiz + " (disponíveis: " + quizNames + ")");
+            }
+            candidates = new Range(-1, range[0], range[1]);
+        }
+        boolean filtersPoints = filter.minPoints != Integer.MIN_VALUE || filter.maxPoints != Integer.MAX_VALUE;
+        if (filtersPoints) {
+            Range range = byPoints.range(filter.minPoints, filter.maxPoints);
+            if (range.length() < candidates.length()) {
+                candidates = range;
+            }
+        }
+        if (filter.options >= 0) {
+            Range range = byOptions.range(filter.options, filter.options);
+            if (range.length() < candidates.length()) {
+                candidates = range;
+            }
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (isExact(candidates, filter, filtersPoints)) {
+            // Todos os candidatos servem: k posições distintas (Floyd), sem percorrer o intervalo
+            int n = candidates.length();
+            k = Math.min(k, n);
+            Set<Integer> chosen = new HashSet<>();
+            int[] ids = new int[k];
+            int found = 0;
+            for (int j = n - k; j < n; j++) {
+                int t = random.nextInt(j + 1);
+                int pick = chosen.add(t) ? t : j;
+                if (pick == j) {
+                    chosen.add(j);
+                }
+                ids[found++] = idAt(candidates, pick);
+            }
+            shuffle(ids, random);
+            return ids;
+        }
+
+        // Restantes critérios verificados nos atributos (8 bytes por pergunta). Primeiro por amostragem
+        // com rejeição - barata quando o filtro é pouco seletivo; se falhar, percorre o intervalo
+        int target = Math.min(k, candidates.length());
+        Set<Integer> tried = new HashSet<>();
+        int[] sampled = new int[target];
+        int found = 0;
+        for (int attempt = 0; attempt < target * REJECTION_ATTEMPTS && found < target
+                && tried.size() < candidates.length(); attempt++) {
+            int i = random.nextInt(candidates.length());
+            if (tried.add(i)) {
+                int id = idAt(candidates, i);
+                if (matches(id, filter, filtersPoints)) {
+                    sampled[found++] = id;
+                }
+            }
+        }
+        if (found == target) {
+            return sampled;
+        }
+
+        // Reservoir sampling sobre todo o intervalo
+        int[] reservoir = new int[Math.max(0, target)];
+        int seen = 0;
+        for (int i = 0; i < candidates.length(); i++) {
+            int id = idAt(candidates, i);
+            if (!matches(id, filter, filtersPoints)) {
+                continue;
+            }
+            int slot = seen < reservoir.length ? seen : random.nextInt(seen + 1);
+            seen++;
+            if (slot < reservoir.length) {
+                reservoir[slot] = id;
+            }
+        }
+        int[] ids = seen < reservoir.length ? Arrays.copyOf(reservoir, seen) : reservoir;
+        shuffle(ids, random);
+        return ids;
+    }
+
+    // O intervalo já garante todos os critérios?
+    private boolean isExact(Range candidates, Filter filter, boolean filtersPoints) {
+        int criteria = (filter.quiz != null ? 1 : 0) + (filtersPoints ? 1 : 0) + (filter.options >= 0 ? 1 : 0);
+        return criteria <= 1 || candidates.length() == 0;
+    }
+
+    private boolean matches(int id, Filter filter, boolean filtersPoints) {
+        int attrs = attrsOffset + id * ATTR_SIZE;
+        if (filter.quiz != null) {
+            int[] range = quizRanges.get(filter.quiz);
+            if (id < range[0] || id >= range[0] + range[1]) {
+                return false;
+            }
+        }
+        if (filter.options >= 0 && (data.get(attrs + 2) & 0xFF) != filter.options) {
+            return false;
+        }
+        if (filtersPoints) {
+            int points = data.getInt(attrs + 4);
+            return points >= filter.minPoints && points <= filter.maxPoints;
+        }
+        return true;
+    }
+
+    private int idAt(Range range, int i) {
+        return range.idsOffset() < 0 ? range.start() + i : data.getInt(range.idsOffset() + (range.start() + i) * 4);
+    }
+
+    private static void shuffle(int[] ids, ThreadLocalRandom random) {
+        for (int i = ids.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+    }
+
+    Question readQuestion(int id) {
+        int pos = data.getInt(indexOffset + id * 4);
+        String text = readString(pos);
+        pos += 2 + (data.getShort(pos) & 0xFFFF);
+        String[] options = new String[data.get(pos) & 0xFF];
+        pos++;
+        for (int i = 0; i < options.length; i++) {
+            options[i] = readString(pos);
+            pos += 2 + (data.getShort(pos) & 0xFFFF);
+        }
+        int correct = data.get(pos) & 0xFF;
+        int points = data.getInt(pos + 1);
+        return new Question(text, options, correct, points);
+    }
+
+    private String readString(int pos) {
+        byte[] bytes = new byte[data.getShort(pos) & 0xFFFF];
+        data.get(pos + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int getQuestionCount() { return questionCount; }
+    public List<String> getQuizNames() { return quizNames; }
+}
@@ -0,0 +1,251 @@
+package kahoot.game;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Compilador offline: quizzes.json -> banco binário lido por QuizBank.
+ * Uso: java kahoot.game.QuizBankCompiler quizzes.json quizzes.bank
+ *
+ * O JSON é lido em streaming; as perguntas de cada quiz ficam contíguas no
+ * banco, por isso o índice por quiz é só um intervalo [início, início+n).
+ * O formato está descrito em QuizBank.
+ */
+public class QuizBankCompiler {
+    private final List<String> quizNames = new ArrayList<>();
+    private final List<int[]> quizRanges = new ArrayList<>(); // {primeira pergunta, número de perguntas}
+    private int[] recordOffsets = new int[1024];
+    private int[] quizIds = new int[1024];
+    private int[] points = new int[1024];
+    private int[] optionCounts = new int[1024];
+    private int count;
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Uso: java kahoot.game.QuizBankCompiler <quizzes.json> <banco.bank>");
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            QuizBankCompiler compiler = new QuizBankCompiler();
+            compiler.compile(Paths.get(args[0]), Paths.get(args[1]));
+            System.out.println("✅ Banco compilado: " + args[1] + " | " + compiler.quizNames.size() + " quiz(zes), "
+                    + compiler.count + " perguntas, " + Files.size(Paths.get(args[1])) / 1024 + " KB ("
+                    + (System.nanoTime() - start) / 1_000_000 + " ms)");
+        } catch (IOException e) {
+            System.out.println("Erro ao compilar banco: " + e.getMessage());
+        }
+    }
+
+    public void compile(Path json, Path bank) throws IOException {
+        try (FileChannel channel = FileChannel.open(bank, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CountingOutput counter = new CountingOutput(new BufferedOutputStream(
+                    Channels.newOutputStream(channel), 1 << 16));
+            DataOutputStream out = new DataOutputStream(counter);
+            out.write(new byte[QuizBank.HEADER_SIZE]); // reescrito no fim
+
+            long recordsOffset = counter.written;
+            readQuizzes(json, out, counter);
+
+            long indexOffset = counter.written;
+            for (int i = 0; i < count; i++) {
+                out.writeInt(recordOffsets[i]);
+            }
+
+            long attrsOffset = counter.written;
+            for (int i = 0; i < count; i++) {
+                out.writeShort(quizIds[i]);
+                out.writeByte(optionCounts[i]);
+                out.writeByte(0);
+                out.writeInt(points[i]);
+            }
+
+            long quizTableOffset = counter.written;
+            for (int q = 0; q < quizNames.size(); q++) {
+                out.writeInt(quizRanges.get(q)[0]);
+                out.writeInt(quizRanges.get(q)[1]);
+                writeString(out, quizNames.get(q));
+            }
+
+            long byPointsOffset = counter.written;
+            writePostings(out, points);
+            long byOptionsOffset = counter.written;
+            writePostings(out, optionCounts);
+            out.flush();
+
+            if (counter.written > Integer.MAX_VALUE) {
+                throw new IOException("Banco com mais de 2 GB não suportado");
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(QuizBank.HEADER_SIZE);
+            header.putInt(QuizBank.MAGIC).putInt(QuizBank.VERSION).putInt(count).putInt(quizNames.size())
+                    .putInt((int) recordsOffset).putInt((int) indexOffset).putInt((int) attrsOffset)
+                    .putInt((int) quizTableOffset).putInt((int) byPointsOffset).putInt((int) byOptionsOffset);
+            header.clear();
+            channel.write(header, 0);
+        }
+    }
+
+    private void readQuizzes(Path json, DataOutputStream out, CountingOutput counter) throws IOException {
+        Set<String> seen = new LinkedHashSet<>();
+        try (JsonReader reader = new JsonReader(QuizStreamLoader.open(json, false))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("quizzes")) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    int quizId = quizNames.size();
+                    int first = count;
+                    String name = null;
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String field = reader.nextName();
+                        if (field.equals("name")) {
+                            name = reader.nextString();
+                        } else if (field.equals("questions")) {
+                            reader.beginArray();
+                            while (reader.hasNext()) {
+                                Question question = QuizStreamLoader.readQuestion(reader);
+                                add(quizId, counter.written, question);
+                                writeQuestion(out, question);
+                            }
+                            reader.endArray();
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    if (name == null || !seen.add(name)) {
+                        throw new IOException("Quiz sem nome ou repetido: " + name);
+                    }
+                    if (quizId > Short.MAX_VALUE) {
+                        throw new IOException("Demasiados quizzes (máximo " + Short.MAX_VALUE + ")");
+                    }
+                    quizNames.add(name);
+                    quizRanges.add(new int[] {first, count - first});
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("JSON inválido: " + e.getMessage(), e);
+        }
+        if (quizNames.isEmpty()) {
+            throw new IOException("Ficheiro JSON não contém quizzes");
+        }
+    }
+
+    private void add(int quizId, long offset, Question question) throws IOException {
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("Banco com mais de 2 GB não suportado");
+        }
+        // O nº de opções e a correta ocupam um byte sem sinal no registo
+        if (question.getOptions().length > 255) {
+            throw new IOException("Pergunta com mais de 255 opções: " + question.getQuestion());
+        }
+        if (question.getCorrect() < 0 || question.getCorrect() >= question.getOptions().length) {
+            throw new IOException("Resposta correta " + question.getCorrect() + " fora das "
+                    + question.getOptions().length + " opções: " + question.getQuestion());
+        }
+        if (count == recordOffsets.length) {
+            int newLength = count * 2;
+            recordOffsets = Arrays.copyOf(recordOffsets, newLength);
+            quizIds = Arrays.copyOf(quizIds, newLength);
+            points = Arrays.copyOf(points, newLength);
+            optionCounts = Arrays.copyOf(optionCounts, newLength);
+        }
+        recordOffsets[count] = (int) offset;
+        quizIds[count] = quizId;
+        points[count] = question.getPoints();
+        optionCounts[count] = question.getOptions().length;
+        count++;
+    }
+
+    // [texto][nº opções][opções...][correta][pontos]
+    private static void writeQuestion(DataOutputStream out, Question question) throws IOException {
+        writeString(out, question.getQuestion());
+        out.writeByte(question.getOptions().length);
+        for (String option : question.getOptions()) {
+            writeString(out, option);
+        }
+        out.writeByte(question.getCorrect());
+        out.writeInt(question.getPoints());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("Texto demasiado longo (" + bytes.length + " bytes)");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    // Índice secundário: [nº chaves][(chave, início, n)...][ids das perguntas ordenados por chave]
+    private void writePostings(DataOutputStream out, int[] keys) throws IOException {
+        long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = ((long) keys[i] << 32) | i; // chave nos bits altos, id nos baixos (desempate pela ordem)
+        }
+        Arrays.sort(sorted);
+
+        List<int[]> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int key = (int) (sorted[i] >> 32);
+            if (entries.isEmpty() || entries.get(entries.size() - 1)[0] != key) {
+                entries.add(new int[] {key, i, 0});
+            }
+            entries.get(entries.size() - 1)[2]++;
+        }
+        out.writeInt(entries.size());
+        for (int[] entry : entries) {
+            out.writeInt(entry[0]);
+            out.writeInt(entry[1]);
+            out.writeInt(entry[2]);
+        }
+        for (long value : sorted) {
+            out.writeInt((int) value);
+        }
+    }
+
+    private static final class CountingOutput extends FilterOutputStream {
+        long written;
+
+        CountingOutput(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            written += len;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package kahoot.game;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Catálogo de quizzes partilhado por todos os jogos. O ficheiro é lido uma vez
+ * para arrays imutáveis de perguntas e só volta a ser lido quando muda (data de
+ * modificação ou tamanho). Cada jogo recebe uma vista baralhada (permutação de
+ * índices) sobre esses arrays, sem copiar perguntas nem tocar no disco.
+ */
+public class QuizCatalog {
+    private static final long RELOAD_CHECK_MS = 1000; // verificar o ficheiro no máximo uma vez por segundo
+    private static final Map<String, QuizCatalog> catalogs = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private volatile Snapshot snapshot;
+    private volatile long lastCheck;
+
+    // Conteúdo do ficheiro num dado momento; substituído por inteiro quando o ficheiro muda
+    private static final class Snapshot {
+        final long modified;
+        final long size;
+        final Map<String, Question[]> quizzes; // pela ordem do ficheiro
+
+        Snapshot(long modified, long size, Map<String, Question[]> quizzes) {
+            this.modified = modified;
+            this.size = size;
+            this.quizzes = quizzes;
+        }
+    }
+
+    private QuizCatalog(Path file) {
+        this.file = file;
+    }
+
+    // Um catálogo por ficheiro, partilhado
+    public static QuizCatalog forFile(String filename) {
+        return catalogs.computeIfAbsent(filename, f -> new QuizCatalog(Paths.get(f)));
+    }
+
+    // Quiz com numQuestions perguntas aleatórias do primeiro quiz do ficheiro
+    public Quiz newQuiz(int numQuestions) throws IOException {
+        return newQuiz(null, numQuestions);
+    }
+
+    // Quiz com numQuestions perguntas aleatórias do quiz indicado (null = primeiro do ficheiro)
+    public Quiz newQuiz(String quizName, int numQuestions) throws IOException {
+        Snapshot current = current();
+        String name = quizName;
+        if (name == null) {
+            name = current.quizzes.keySet().iterator().next();
+        }
+        Question[] pool = current.quizzes.get(name);
+        if (pool == null) {
+            throw new IOException("Quiz desconhecido: " + quizName + " (disponíveis: " + current.quizzes.keySet() + ")");
+        }
+        return new Quiz(name, new ShuffledView(pool, randomIndexes(pool.length, numQuestions)));
+    }
+
+    public List<String> getQuizNames() throws IOException {
+        return new ArrayList<>(current().quizzes.keySet());
+    }
+
+    private Snapshot current() throws IOException {
+        Snapshot current = snapshot;
+        long now = System.currentTimeMillis();
+        if (current != null && now - lastCheck < RELOAD_CHECK_MS) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && now - lastCheck < RELOAD_CHECK_MS) {
+                return current;
+            }
+            lastCheck = now;
+            try {
+                long modified = Files.getLastModifiedTime(file).toMillis();
+                long size = Files.size(file);
+                if (current == null || current.modified != modified || current.size != size) {
+                    snapshot = current = load(modified, size);
+                }
+            } catch (IOException e) {
+                if (current == null) {
+                    throw e;
+                }
+                // Manter o catálogo anterior se o ficheiro ficou inválido ou desapareceu
+                System.err.println("Erro ao recarregar " + file + ": " + e.getMessage());
+            }
+            return current;
+        }
+    }
+
+    private Snapshot load(long modified, long size) throws IOException {
+        long start = System.nanoTime();
+        Map<String, Question[]> quizzes = new LinkedHashMap<>();
+        try (JsonReader reader = new JsonReader(QuizStreamLoader.open(file, false))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("quizzes")) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    readQuiz(reader, quizzes);
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+            if (quizzes.isEmpty()) {
+                throw new IOException("Ficheiro JSON não contém quizzes");
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Erro ao carregar quizzes de " + file + ": " + e.getMessage(), e);
+        }
+
+        int total = 0;
+        for (Question[] questions : quizzes.values()) {
+            total += questions.length;
+        }
+        System.out.println("📚 Catálogo carregado: " + quizzes.size() + " quiz(zes), " + total + " perguntas ("
+                + (System.nanoTime() - start) / 1_000_000 + " ms)");
+        return new Snapshot(modified, size, Collections.unmodifiableMap(quizzes));
+    }
+
+    private static void readQuiz(JsonReader reader, Map<String, Question[]> quizzes) throws IOException {
+        String name = null;
+        List<Question> questions = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (field.equals("name")) {
+                name = reader.nextString();
+            } else if (field.equals("questions")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    questions.add(QuizStreamLoader.readQuestion(reader));
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (name == null) {
+            throw new IOException("Quiz sem nome (" + reader.getPath() + ")");
+        }
+        quizzes.put(name, questions.toArray(new Question[0]));
+    }
+
+    // Fisher-Yates parcial e esparso: os primeiros k índices de uma permutação aleatória de 0..n-1.
+    // Só as posições trocadas ficam no mapa, por isso custa O(k) e não O(n) por jogo
+    private static int[] randomIndexes(int n, int k) {
+        k = Math.min(k, n);
+        int[] indexes = new int[k];
+        Map<Integer, Integer> swapped = new HashMap<>(k * 2);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(n - i);
+            indexes[i] = swapped.getOrDefault(j, j);
+            swapped.put(j, swapped.getOrDefault(i, i));
+        }
+        return indexes;
+    }
+
+    // Lista só de leitura: pool[order[i]] (Quiz.addQuestion copia-a antes de acrescentar)
+    private static final class ShuffledView extends AbstractList<Question> implements Serializable {
+        private final Question[] pool;
+        private final int[] order;
+
+        ShuffledView(Question[] pool, int[] order) {
+            this.pool = pool;
+            this.order = order;
+        }
+
+        @Override
+        public Question get(int index) {
+            return pool[order[index]];
+        }
+
+        @Override
+        public int size() {
+            return order.length;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package kahoot.game;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Carrega perguntas de ficheiros JSON grandes sem construir a árvore do documento.
+ * Percorre o ficheiro uma vez com um JsonReader e escolhe as perguntas por
+ * reservoir sampling: só as numQuestions do reservatório ficam em memória, as
+ * restantes são saltadas sem criar objetos. Opcionalmente o ficheiro é lido
+ * através de memory-mapping em vez de read().
+ */
+public class QuizStreamLoader {
+    private static final long MAP_CHUNK = 1L << 30; // cada MappedByteBuffer tem no máximo 2 GB; usar blocos de 1 GB
+
+    private QuizStreamLoader() {}
+
+    public static Quiz load(Path file, int numQuestions, boolean mapped) throws IOException {
+        return load(file, null, numQuestions, mapped, ThreadLocalRandom.current());
+    }
+
+    // quizName null = primeiro quiz do ficheiro
+    public static Quiz load(Path file, String quizName, int numQuestions, boolean mapped, Random random)
+            throws IOException {
+        try (JsonReader reader = new JsonReader(open(file, mapped))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("quizzes")) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    Quiz quiz = readQuiz(reader, quizName, numQuestions, random);
+                    if (quiz != null) {
+                        return quiz; // o resto do ficheiro não interessa
+                    }
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        } catch (IOException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // JsonReader lança IllegalStateException/NumberFormatException para JSON com formato inesperado
+            throw new IOException("Erro ao carregar quiz do ficheiro: " + e.getMessage(), e);
+        }
+        throw new IOException(quizName == null ? "Ficheiro JSON não contém quizzes" : "Quiz desconhecido: " + quizName);
+    }
+
+    // Lê um quiz; devolve null (e salta as perguntas) se não for o pretendido
+    private static Quiz readQuiz(JsonReader reader, String quizName, int numQuestions, Random random)
+            throws IOException {
+        String name = null;
+        List<Question> reservoir = null;
+        long seen = 0;
+        boolean wanted = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (field.equals("name")) {
+                name = reader.nextString();
+                wanted = quizName == null || quizName.equals(name);
+            } else if (field.equals("questions") && (wanted || name == null)) {
+                // Se "questions" aparecer antes de "name" amostramos na mesma e decidimos no fim
+                reservoir = new ArrayList<>(Math.min(numQuestions, 1024));
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    // Algoritmo R: o i-ésimo elemento entra com probabilidade k/i
+                    int slot = seen < numQuestions ? (int) seen : (int) nextLong(random, seen + 1);
+                    seen++;
+                    if (slot < numQuestions) {
+                        Question question = readQuestion(reader);
+                        if (slot == reservoir.size()) {
+                            reservoir.add(question);
+                        } else {
+                            reservoir.set(slot, question);
+                        }
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!wanted || name == null) {
+            return null;
+        }
+        if (reservoir == null) {
+            reservoir = new ArrayList<>();
+        }
+        // O reservatório guarda os primeiros k pela ordem do ficheiro - baralhar a ordem de apresentação
+        Collections.shuffle(reservoir, random);
+        System.out.println("✅ Quiz carregado: " + name + " | " + reservoir.size() + "/" + seen
+                + " perguntas selecionadas aleatoriamente");
+        return new Quiz(name, reservoir);
+    }
+
+    // Lê uma pergunta a partir do JsonReader (campos por qualquer ordem; campos desconhecidos ignorados)
+    static Question readQuestion(JsonReader reader) throws IOException {
+        String text = null;
+        String[] options = null;
+        int correct = -1;
+        int points = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "question" -> text = reader.nextString();
+                case "correct" -> correct = reader.nextInt();
+                case "points" -> points = reader.nextInt();
+                case "options" -> {
+                    List<String> list = new ArrayList<>(4);
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        list.add(reader.nextString());
+                    }
+                    reader.endArray();
+                    options = list.toArray(new String[0]);
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (text == null || options == null) {
+            throw new IOException("Pergunta sem texto ou opções (" + reader.getPath() + ")");
+        }
+        return new Question(text, options, correct, points);
+    }
+
+    static Reader open(Path file, boolean mapped) throws IOException {
+        if (!mapped) {
+            return Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        }
+        return new BufferedReader(new InputStreamReader(new MappedInputStream(file), StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    private static long nextLong(Random random, long bound) {
+        return bound <= Integer.MAX_VALUE ? random.nextInt((int) bound) : random.nextLong(bound);
+    }
+
+    // InputStream sobre o ficheiro mapeado em memória, bloco a bloco
+    private static final class MappedInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long size;
+        private long mappedUpTo;
+        private MappedByteBuffer current;
+
+        MappedInputStream(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+        }
+
+        private boolean ensureMapped() throws IOException {
+            if (current != null && current.hasRemaining()) {
+                return true;
+            }
+            if (mappedUpTo >= size) {
+                return false;
+            }
+            long length = Math.min(MAP_CHUNK, size - mappedUpTo);
+            current = channel.map(FileChannel.MapMode.READ_ONLY, mappedUpTo, length);
+            mappedUpTo += length;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return ensureMapped() ? current.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureMapped()) {
+                return -1;
+            }
+            int n = Math.min(len, current.remaining());
+            current.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            current = null;
+            channel.close();
+        }
+    }
+}
@@ -3,16 +3,17 @@ package kahoot.game;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Team implements Serializable {
     private final String teamId;
     private final List<Player> players;
-    private int teamScore;
+    private final AtomicInteger teamScore;
 
     public Team(String teamId) {
         this.teamId = teamId;
         this.players = new ArrayList<>();
-        this.teamScore = 0;
+        this.teamScore = new AtomicInteger(0);
     }
 
     public void addPlayer(Player player) {
@@ -21,7 +22,7 @@ public class Team implements Serializable {
 
     public List<Player> getPlayers() { return players; }
     public String getTeamId() { return teamId; }
-    public int getTeamScore() { return teamScore; }
-    public void addTeamScore(int points) { this.teamScore += points; }
+    public int getTeamScore() { return teamScore.get(); }
+    public void addTeamScore(int points) { teamScore.addAndGet(points); }
     public int getPlayerCount() { return players.size(); }
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+package kahoot.log;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffer circular de eventos de log com vários produtores e um consumidor, sem locks
+ * do lado de quem regista: o produtor reserva uma posição por CAS, preenche o evento
+ * (pré-alocado) e publica-o com o número de sequência. Uma thread de fundo formata os
+ * eventos por ordem e escreve-os em lote na consola. Com o buffer cheio o evento é
+ * descartado e contado - quem regista nunca espera pela consola. Sem eventos a thread
+ * de fundo fica parada até o próximo produtor a acordar (sem acordar periodicamente).
+ */
+final class AsyncLogWriter {
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+    private static final int MAX_BATCH = 4096; // eventos por escrita na consola
+
+    private final Event[] events;
+    private final AtomicLongArray published; // posição -> sequência + 1 do evento publicado
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(); // próxima sequência a reservar
+    private volatile long head; // próxima sequência a escrever (só o consumidor avança)
+    private final ReentrantLock consumer = new ReentrantLock(); // thread de fundo ou flush()
+    private final LongAdder dropped = new LongAdder();
+    private final Thread flusher;
+    private volatile boolean idle; // a thread de fundo vai parar (ou está parada) à espera de eventos
+    private long reportedDropped;
+
+    // Evento reutilizado: a mensagem só é formatada na thread de fundo
+    private static final class Event {
+        Log.Level level;
+        long timeMillis;
+        String thread;
+        String template;
+        Object a;
+        Object b;
+        Object c;
+        Object d;
+    }
+
+    AsyncLogWriter(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1; // potência de 2
+        this.events = new Event[size];
+        for (int i = 0; i < size; i++) {
+            events[i] = new Event();
+        }
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+
+        flusher = new Thread(this::run, "kahoot-log");
+        flusher.setDaemon(true);
+        flusher.start();
+        // Escrever o que ficou no buffer quando o processo termina
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "kahoot-log-flush"));
+    }
+
+    boolean offer(Log.Level level, String template, Object a, Object b, Object c, Object d) {
+        long seq;
+        do {
+            seq = tail.get();
+            if (seq - head >= events.length) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(seq, seq + 1));
+
+        int index = (int) (seq & mask);
+        Event event = events[index];
+        event.level = level;
+        event.timeMillis = System.currentTimeMillis();
+        event.thread = Thread.currentThread().getName();
+        event.template = template;
+        event.a = a;
+        event.b = b;
+        event.c = c;
+        event.d = d;
+        // Publica depois de preencher; escrita volátil para que a leitura de idle não a ultrapasse
+        published.set(index, seq + 1);
+        if (idle) {
+            idle = false;
+            LockSupport.unpark(flusher);
+        }
+        return true;
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    private void run() {
+        while (true) {
+            if (drain()) {
+                continue;
+            }
+            idle = true;
+            // Um produtor pode ter publicado antes de ver idle: voltar a ver antes de parar
+            if (!hasPublished()) {
+                LockSupport.park(this);
+            }
+            idle = false;
+        }
+    }
+
+    private boolean hasPublished() {
+        long seq = head;
+        return published.get((int) (seq & mask)) == seq + 1;
+    }
+
+    void flush() {
+        drain();
+    }
+
+    // Escreve os eventos publicados; devolve false se não havia nenhum
+    private boolean drain() {
+        consumer.lock();
+        try {
+            StringBuilder out = new StringBuilder();
+            StringBuilder err = null;
+            long seq = head;
+            long end = seq + MAX_BATCH;
+            while (seq < end && published.get((int) (seq & mask)) == seq + 1) {
+                Event event = events[(int) (seq & mask)];
+                boolean error = event.level.compareTo(Log.Level.WARN) >= 0;
+                if (error && err == null) {
+                    err = new StringBuilder();
+                }
+                format(error ? err : out, event);
+                event.a = event.b = event.c = event.d = null; // não reter objetos do jogo
+                seq++;
+                head = seq; // liberta a posição para os produtores
+            }
+            long lost = dropped.sum();
+            if (lost != reportedDropped) {
+                out.append(LocalTime.now().format(TIME)).append(" WARN  [kahoot-log] ")
+                        .append(lost - reportedDropped).append(" mensagem(ns) de log descartada(s) (buffer cheio)\n");
+                reportedDropped = lost;
+            }
+            write(System.out, out);
+            if (err != null) {
+                write(System.err, err);
+            }
+            return out.length() > 0 || err != null;
+        } finally {
+            consumer.unlock();
+        }
+    }
+
+    private static void write(PrintStream stream, StringBuilder text) {
+        if (text.length() > 0) {
+            stream.print(text);
+            stream.flush();
+        }
+    }
+
+    // "12:00:01.234 INFO  [thread] mensagem" com {} substituídos pelos argumentos
+    private static void format(StringBuilder sb, Event event) {
+        LocalTime time = LocalTime.ofInstant(Instant.ofEpochMilli(event.timeMillis), ZoneId.systemDefault());
+        sb.append(time.format(TIME)).append(' ');
+        String level = event.level.name();
+        sb.append(level);
+        for (int i = level.length(); i < 6; i++) {
+            sb.append(' ');
+        }
+        sb.append('[').append(event.thread).append("] ");
+
+        Object[] args = {event.a, event.b, event.c, event.d};
+        String template = event.template;
+        int arg = 0;
+        int from = 0;
+        int at;
+        while ((at = template.indexOf("{}", from)) >= 0 && arg < args.length) {
+            sb.append(template, from, at).append(args[arg++]);
+            from = at + 2;
+        }
+        sb.append(template, from, template.length()).append('\n');
+
+        // Como no SLF4J: um Throwable no último argumento, sem {} para ele, sai com o stack trace
+        int last = args.length - 1;
+        while (last >= 0 && args[last] == null) {
+            last--;
+        }
+        if (last >= arg && args[last] instanceof Throwable) {
+            StringWriter trace = new StringWriter();
+            ((Throwable) args[last]).printStackTrace(new PrintWriter(trace));
+            sb.append(trace);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package kahoot.log;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log do servidor: níveis, amostragem e escrita assíncrona (AsyncLogWriter).
+ * As mensagens usam {} para os argumentos e só são formatadas na thread de fundo.
+ * Uma exceção passada como último argumento, sem {} para ela, é escrita com o stack trace.
+ * Um nível desligado custa uma leitura de campo; no caminho quente as chamadas
+ * ficam dentro de if (Log.isDebugEnabled()) para nem sequer criar os argumentos.
+ *
+ * -Dkahoot.log.level=debug|info|warn|error (por omissão info)
+ * -Dkahoot.log.sample=N   regista só ~1 em cada N mensagens de debug (por omissão 1 = todas)
+ * -Dkahoot.log.buffer=8192 capacidade do buffer (mensagens; com o buffer cheio são descartadas)
+ */
+public final class Log {
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final AsyncLogWriter WRITER = new AsyncLogWriter(Integer.getInteger("kahoot.log.buffer", 8192));
+    private static volatile Level level = parseLevel(System.getProperty("kahoot.log.level", "info"));
+    private static volatile int debugSample = Math.max(1, Integer.getInteger("kahoot.log.sample", 1));
+
+    private Log() {
+    }
+
+    public static Level parseLevel(String value) {
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Nível de log inválido: " + value + " (debug, info, warn, error)");
+        }
+    }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    public static int getDebugSample() {
+        return debugSample;
+    }
+
+    public static void setDebugSample(int everyN) {
+        debugSample = Math.max(1, everyN);
+    }
+
+    public static boolean isDebugEnabled() {
+        return level == Level.DEBUG;
+    }
+
+    public static boolean isEnabled(Level messageLevel) {
+        return messageLevel.compareTo(level) >= 0;
+    }
+
+    public static long getDropped() {
+        return WRITER.getDropped();
+    }
+
+    // Escreve já o que está no buffer (ex.: antes de terminar)
+    public static void flush() {
+        WRITER.flush();
+    }
+
+    public static void debug(String template) { debug(template, null, null, null, null); }
+    public static void debug(String template, Object a) { debug(template, a, null, null, null); }
+    public static void debug(String template, Object a, Object b) { debug(template, a, b, null, null); }
+    public static void debug(String template, Object a, Object b, Object c) { debug(template, a, b, c, null); }
+
+    public static void debug(String template, Object a, Object b, Object c, Object d) {
+        if (level == Level.DEBUG && sampled()) {
+            WRITER.offer(Level.DEBUG, template, a, b, c, d);
+        }
+    }
+
+    public static void info(String template) { log(Level.INFO, template, null, null, null, null); }
+    public static void info(String template, Object a) { log(Level.INFO, template, a, null, null, null); }
+    public static void info(String template, Object a, Object b) { log(Level.INFO, template, a, b, null, null); }
+    public static void info(String template, Object a, Object b, Object c) { log(Level.INFO, template, a, b, c, null); }
+    public static void info(String template, Object a, Object b, Object c, Object d) { log(Level.INFO, template, a, b, c, d); }
+
+    public static void warn(String template) { log(Level.WARN, template, null, null, null, null); }
+    public static void warn(String template, Object a) { log(Level.WARN, template, a, null, null, null); }
+    public static void warn(String template, Object a, Object b) { log(Level.WARN, template, a, b, null, null); }
+
+    public static void error(String template) { log(Level.ERROR, template, null, null, null, null); }
+    public static void error(String template, Object a) { log(Level.ERROR, template, a, null, null, null); }
+    public static void error(String template, Object a, Object b) { log(Level.ERROR, template, a, b, null, null); }
+
+    private static void log(Level messageLevel, String template, Object a, Object b, Object c, Object d) {
+        if (messageLevel.compareTo(level) >= 0) {
+            WRITER.offer(messageLevel, template, a, b, c, d);
+        }
+    }
+
+    // Amostragem aleatória por thread - sem contador partilhado entre threads
+    private static boolean sampled() {
+        int every = debugSample;
+        return every == 1 || ThreadLocalRandom.current().nextInt(every) == 0;
+    }
+}
@@ -13,6 +13,15 @@ public class AnswerMessage extends Message {
         this.timestamp = System.currentTimeMillis();
     }
 
+    // Usado na descodificação para preservar o instante original da resposta
+    AnswerMessage(String gameId, String teamId, String username,
+                  int questionIndex, int answer, long timestamp) {
+        super(gameId, teamId, username);
+        this.questionIndex = questionIndex;
+        this.answer = answer;
+        this.timestamp = timestamp;
+    }
+
     public int getQuestionIndex() { return questionIndex; }
     public int getAnswer() { return answer; }
     public long getTimestamp() { return timestamp; }
@@ -0,0 +1,287 @@
+package kahoot.messages;
+
+import kahoot.game.Question;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Codificação binária compacta das mensagens (alternativa à serialização Java).
+ *
+ * Formato v2: [byte versão][byte tipo][gameId][teamId][username][campos do tipo]
+ * - inteiros com largura fixa (int = 4 bytes, long = 8 bytes, boolean = 1 byte)
+ * - strings: [short tamanho em bytes UTF-8, -1 = null][bytes]
+ * - mapas de pontuações: [int n] seguido de n pares [string equipa][int pontos]
+ * - v2: pontuações (completas e deltas) terminam com [int posição equipa][int posição jogador]
+ *
+ * O primeiro byte nunca coincide com o da serialização Java (0xAC), o que
+ * permite ao WireFormat distinguir os dois formatos na descodificação.
+ *
+ * Os frames vêm de clientes não confiáveis: cada tamanho ou contagem lido é validado
+ * contra os bytes que restam no frame antes de alocar o que quer que seja.
+ */
+public final class BinaryCodec {
+    public static final byte VERSION = 2;
+
+    private static final byte ENROLLMENT = 1;
+    private static final byte ANSWER = 2;
+    private static final byte QUESTION = 3;
+    private static final byte SCORE = 4;
+    private static final byte GAME_END = 5;
+    private static final byte ERROR = 6;
+    private static final byte PING = 7;
+    private static final byte PONG = 8;
+    private static final byte SESSION = 9;
+    private static final byte RESUME = 10;
+    private static final byte SCORE_DELTA = 11;
+
+    // Capacidade inicial máxima dos mapas descodificados (crescem se houver mais entradas)
+    private static final int MAX_PRESIZED_SCORES = 1024;
+    // IDs de jogo e de equipa criados pelo servidor (registados pelo GameRegistry): repetem-se em
+    // todas as mensagens, por isso partilham a mesma instância. O que vem da rede nunca entra aqui.
+    private static final Map<String, String> internedIds = new ConcurrentHashMap<>();
+
+    private BinaryCodec() {
+    }
+
+    public static byte[] encode(Message msg) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeByte(VERSION);
+        out.writeByte(typeOf(msg));
+        writeString(out, msg.getGameId());
+        writeString(out, msg.getTeamId());
+        writeString(out, msg.getUsername());
+
+        if (msg instanceof AnswerMessage) {
+            AnswerMessage answer = (AnswerMessage) msg;
+            out.writeInt(answer.getQuestionIndex());
+            out.writeInt(answer.getAnswer());
+            out.writeLong(answer.getTimestamp());
+        } else if (msg instanceof QuestionMessage) {
+            QuestionMessage question = (QuestionMessage) msg;
+            writeQuestion(out, question.getQuestion());
+            out.writeInt(question.getTimeLimit());
+            out.writeInt(question.getQuestionIndex());
+            out.writeBoolean(question.isTeamQuestion());
+        } else if (msg instanceof ScoreMessage) {
+            ScoreMessage score = (ScoreMessage) msg;
+            writeScores(out, score.getTeamScores());
+            out.writeInt(score.getCurrentRoundPoints());
+            out.writeInt(score.getQuestionIndex());
+            out.writeInt(score.getTeamRank());
+            out.writeInt(score.getPlayerRank());
+        } else if (msg instanceof ScoreDeltaMessage) {
+            ScoreDeltaMessage delta = (ScoreDeltaMessage) msg;
+            writeScores(out, delta.getChangedScores());
+            out.writeInt(delta.getRoundPoints());
+            out.writeInt(delta.getQuestionIndex());
+            out.writeInt(delta.getTeamRank());
+            out.writeInt(delta.getPlayerRank());
+        } else if (msg instanceof GameEndMessage) {
+            GameEndMessage end = (GameEndMessage) msg;
+            writeScores(out, end.getFinalScores());
+            writeString(out, end.getWinningTeam());
+        } else if (msg instanceof ErrorMessage) {
+            writeString(out, ((ErrorMessage) msg).getErrorMessage());
+        } else if (msg instanceof PingMessage) {
+            out.writeLong(((PingMessage) msg).getTimestamp());
+        } else if (msg instanceof PongMessage) {
+            out.writeLong(((PongMessage) msg).getTimestamp());
+        } else if (msg instanceof SessionMessage) {
+            writeString(out, ((SessionMessage) msg).getToken());
+        } else if (msg instanceof ResumeMessage) {
+            writeString(out, ((ResumeMessage) msg).getToken());
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static Message decode(byte[] data, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Versão do protocolo binário não suportada: " + version);
+        }
+        byte type = in.readByte();
+        String gameId = readId(in);
+        String teamId = readId(in);
+        String username = readId(in);
+
+        switch (type) {
+            case ENROLLMENT:
+                return new EnrollmentMessage(gameId, teamId, username);
+            case ANSWER: {
+                int questionIndex = in.readInt();
+                int answer = in.readInt();
+                long timestamp = in.readLong();
+                return new AnswerMessage(gameId, teamId, username, questionIndex, answer, timestamp);
+            }
+            case QUESTION: {
+                Question question = readQuestion(in);
+                int timeLimit = in.readInt();
+                int questionIndex = in.readInt();
+                boolean isTeamQuestion = in.readBoolean();
+                return new QuestionMessage(gameId, teamId, username, question, timeLimit, questionIndex, isTeamQuestion);
+            }
+            case SCORE: {
+                Map<String, Integer> teamScores = readScores(in);
+                int currentRoundPoints = in.readInt();
+                int questionIndex = in.readInt();
+                int teamRank = in.readInt();
+                int playerRank = in.readInt();
+                return new ScoreMessage(gameId, teamId, username, teamScores, currentRoundPoints, questionIndex,
+                        teamRank, playerRank);
+            }
+            case SCORE_DELTA: {
+                Map<String, Integer> changedScores = readScores(in);
+                int roundPoints = in.readInt();
+                int questionIndex = in.readInt();
+                int teamRank = in.readInt();
+                int playerRank = in.readInt();
+                return new ScoreDeltaMessage(gameId, teamId, username, changedScores, roundPoints, questionIndex,
+                        teamRank, playerRank);
+            }
+            case GAME_END: {
+                Map<String, Integer> finalScores = readScores(in);
+                String winningTeam = readId(in);
+                return new GameEndMessage(gameId, teamId, username, finalScores, winningTeam);
+            }
+            case ERROR:
+                return new ErrorMessage(gameId, teamId, username, readString(in));
+            case PING:
+                return new PingMessage(gameId, teamId, username, in.readLong());
+            case PONG:
+                return new PongMessage(gameId, teamId, username, in.readLong());
+            case SESSION:
+                return new SessionMessage(gameId, teamId, username, readString(in));
+            case RESUME:
+                return new ResumeMessage(gameId, teamId, username, readString(in));
+            default:
+                throw new IOException("Tipo de mensagem binária desconhecido: " + type);
+        }
+    }
+
+    private static byte typeOf(Message msg) throws IOException {
+        if (msg instanceof EnrollmentMessage) return ENROLLMENT;
+        if (msg instanceof AnswerMessage) return ANSWER;
+        if (msg instanceof QuestionMessage) return QUESTION;
+        if (msg instanceof ScoreMessage) return SCORE;
+        if (msg instanceof ScoreDeltaMessage) return SCORE_DELTA;
+        if (msg instanceof GameEndMessage) return GAME_END;
+        if (msg instanceof ErrorMessage) return ERROR;
+        if (msg instanceof PingMessage) return PING;
+        if (msg instanceof PongMessage) return PONG;
+        if (msg instanceof SessionMessage) return SESSION;
+        if (msg instanceof ResumeMessage) return RESUME;
+        throw new IOException("Mensagem sem codificação binária: " + msg.getClass().getName());
+    }
+
+    private static void writeQuestion(DataOutputStream out, Question question) throws IOException {
+        writeString(out, question.getQuestion());
+        String[] options = question.getOptions();
+        if (options.length > 255) {
+            throw new IOException("Demasiadas opções para o protocolo binário: " + options.length);
+        }
+        out.writeByte(options.length);
+        for (String option : options) {
+            writeString(out, option);
+        }
+        out.writeInt(question.getCorrect());
+        out.writeInt(question.getPoints());
+    }
+
+    private static Question readQuestion(DataInputStream in) throws IOException {
+        String text = readString(in);
+        int count = in.readUnsignedByte();
+        checkCount(in, count, 2); // cada opção tem pelo menos o short do tamanho
+        String[] options = new String[count];
+        for (int i = 0; i < options.length; i++) {
+            options[i] = readString(in);
+        }
+        int correct = in.readInt();
+        int points = in.readInt();
+        return new Question(text, options, correct, points);
+    }
+
+    private static void writeScores(DataOutputStream out, Map<String, Integer> scores) throws IOException {
+        if (scores == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(scores.size());
+        for (Map.Entry<String, Integer> entry : scores.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    private static Map<String, Integer> readScores(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size == -1) {
+            return null;
+        }
+        checkCount(in, size, 6); // [short tamanho][int pontos] por entrada, no mínimo
+        Map<String, Integer> scores = new HashMap<>(Math.min(size, MAX_PRESIZED_SCORES) * 2);
+        for (int i = 0; i < size; i++) {
+            scores.put(readId(in), in.readInt());
+        }
+        return scores;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length > Short.MAX_VALUE) {
+            throw new IOException("String demasiado longa para o protocolo binário: " + utf8.length + " bytes");
+        }
+        out.writeShort(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readShort();
+        if (length == -1) {
+            return null;
+        }
+        checkCount(in, length, 1);
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    // Recusa contagens negativas ou que precisariam de mais bytes do que os que restam no frame
+    private static void checkCount(DataInputStream in, int count, int minBytesEach) throws IOException {
+        if (count < 0 || (long) count * minBytesEach > in.available()) {
+            throw new IOException("Tamanho inválido no protocolo binário: " + count
+                    + " (restam " + in.available() + " bytes)");
+        }
+    }
+
+    // Regista um ID criado pelo servidor e devolve a instância partilhada
+    public static String internId(String id) {
+        String interned = internedIds.putIfAbsent(id, id);
+        return interned != null ? interned : id;
+    }
+
+    public static void releaseId(String id) {
+        internedIds.remove(id);
+    }
+
+    private static String readId(DataInputStream in) throws IOException {
+        String id = readString(in);
+        if (id == null) {
+            return null;
+        }
+        String interned = internedIds.get(id);
+        return interned != null ? interned : id;
+    }
+}
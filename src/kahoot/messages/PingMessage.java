@@ -0,0 +1,16 @@
+package kahoot.messages;
+
+/**
+ * Sinal de vida: quem o recebe responde com um PongMessage com o mesmo timestamp.
+ * O servidor envia-o às ligações sem tráfego recente (ver HeartbeatMonitor).
+ */
+public class PingMessage extends Message {
+    private final long timestamp;
+
+    public PingMessage(String gameId, String teamId, String username, long timestamp) {
+        super(gameId, teamId, username);
+        this.timestamp = timestamp;
+    }
+
+    public long getTimestamp() { return timestamp; }
+}
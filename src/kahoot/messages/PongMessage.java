@@ -0,0 +1,15 @@
+package kahoot.messages;
+
+/**
+ * Resposta a um PingMessage; devolve o timestamp do ping para medir o tempo de ida e volta.
+ */
+public class PongMessage extends Message {
+    private final long timestamp;
+
+    public PongMessage(String gameId, String teamId, String username, long timestamp) {
+        super(gameId, teamId, username);
+        this.timestamp = timestamp;
+    }
+
+    public long getTimestamp() { return timestamp; }
+}
@@ -0,0 +1,16 @@
+package kahoot.messages;
+
+/**
+ * Retoma a sessão de um jogador já inscrito numa nova ligação. O servidor associa a
+ * ligação ao jogador existente e reenvia a pergunta atual e as últimas pontuações.
+ */
+public class ResumeMessage extends Message {
+    private final String token;
+
+    public ResumeMessage(String gameId, String teamId, String username, String token) {
+        super(gameId, teamId, username);
+        this.token = token;
+    }
+
+    public String getToken() { return token; }
+}
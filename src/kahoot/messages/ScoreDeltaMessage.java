@@ -0,0 +1,34 @@
+package kahoot.messages;
+
+import java.util.Map;
+
+/**
+ * Pontuações no fim de uma pergunta, só com as equipas cuja pontuação mudou (com o
+ * total novo) e os pontos que o destinatário ganhou nessa ronda. O cliente aplica-as
+ * à sua cópia do placar; um ScoreMessage completo chega periodicamente para ressincronizar.
+ * Inclui também a posição da equipa e do jogador destinatários.
+ */
+public class ScoreDeltaMessage extends Message {
+    private final Map<String, Integer> changedScores;
+    private final int roundPoints;
+    private final int questionIndex;
+    private final int teamRank;
+    private final int playerRank;
+
+    public ScoreDeltaMessage(String gameId, String teamId, String username,
+                             Map<String, Integer> changedScores, int roundPoints, int questionIndex,
+                             int teamRank, int playerRank) {
+        super(gameId, teamId, username);
+        this.changedScores = changedScores;
+        this.roundPoints = roundPoints;
+        this.questionIndex = questionIndex;
+        this.teamRank = teamRank;
+        this.playerRank = playerRank;
+    }
+
+    public Map<String, Integer> getChangedScores() { return changedScores; }
+    public int getRoundPoints() { return roundPoints; }
+    public int getQuestionIndex() { return questionIndex; }
+    public int getTeamRank() { return teamRank; }
+    public int getPlayerRank() { return playerRank; }
+}
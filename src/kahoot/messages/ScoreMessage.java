@@ -6,16 +6,23 @@ public class ScoreMessage extends Message {
     private final Map<String, Integer> teamScores;
     private final int currentRoundPoints;
     private final int questionIndex;
+    private final int teamRank; // posição da equipa do destinatário (0 = desconhecida)
+    private final int playerRank; // posição do destinatário entre todos os jogadores
 
     public ScoreMessage(String gameId, String teamId, String username,
-                        Map<String, Integer> teamScores, int currentRoundPoints, int questionIndex) {
+                        Map<String, Integer> teamScores, int currentRoundPoints, int questionIndex,
+                        int teamRank, int playerRank) {
         super(gameId, teamId, username);
         this.teamScores = teamScores;
         this.currentRoundPoints = currentRoundPoints;
         this.questionIndex = questionIndex;
+        this.teamRank = teamRank;
+        this.playerRank = playerRank;
     }
 
     public Map<String, Integer> getTeamScores() { return teamScores; }
     public int getCurrentRoundPoints() { return currentRoundPoints; }
     public int getQuestionIndex() { return questionIndex; }
+    public int getTeamRank() { return teamRank; }
+    public int getPlayerRank() { return playerRank; }
 }
\ No newline at end of file
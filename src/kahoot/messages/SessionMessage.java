@@ -0,0 +1,16 @@
+package kahoot.messages;
+
+/**
+ * Token de sessão entregue ao jogador depois de uma inscrição aceite. Se a ligação cair,
+ * o cliente volta a ligar-se e envia um ResumeMessage com este token em vez de se inscrever.
+ */
+public class SessionMessage extends Message {
+    private final String token;
+
+    public SessionMessage(String gameId, String teamId, String username, String token) {
+        super(gameId, teamId, username);
+        this.token = token;
+    }
+
+    public String getToken() { return token; }
+}
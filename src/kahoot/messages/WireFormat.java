@@ -0,0 +1,100 @@
+package kahoot.messages;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * Enquadramento das mensagens na ligação TCP.
+ * Cada mensagem viaja num frame: [int tamanho][payload], o que permite
+ * ler mensagens completas tanto de streams bloqueantes como de canais NIO.
+ *
+ * O payload usa o codec escolhido com -Dkahoot.codec=binary|java (por omissão binary).
+ * O formato binário é sempre aceite; frames de serialização Java só são descodificados
+ * com -Dkahoot.codec=java, porque desserializar objetos vindos da rede executa código
+ * das classes do classpath (no NIO, na própria thread do event loop).
+ */
+public final class WireFormat {
+    public enum Codec { BINARY, JAVA }
+
+    public static final int HEADER_SIZE = 4;
+    public static final int MAX_FRAME_SIZE = 1 << 20; // 1 MB
+
+    private static final Codec DEFAULT_CODEC = Codec.valueOf(
+            System.getProperty("kahoot.codec", "binary").trim().toUpperCase());
+    private static final byte JAVA_STREAM_MAGIC = (byte) 0xAC; // primeiro byte de ObjectStreamConstants.STREAM_MAGIC
+
+    private WireFormat() {
+    }
+
+    public static Codec getDefaultCodec() {
+        return DEFAULT_CODEC;
+    }
+
+    public static byte[] encode(Message msg) throws IOException {
+        return encode(msg, DEFAULT_CODEC);
+    }
+
+    public static byte[] encode(Message msg, Codec codec) throws IOException {
+        if (codec == Codec.BINARY) {
+            return BinaryCodec.encode(msg);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        // Stream novo por mensagem - não acumula a tabela de handles entre mensagens
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(msg);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Message decode(byte[] data, int offset, int length) throws IOException {
+        return decode(data, offset, length, DEFAULT_CODEC);
+    }
+
+    // Com Codec.JAVA aceita também serialização Java (benchmarks e testes; a rede usa o codec por omissão)
+    public static Message decode(byte[] data, int offset, int length, Codec codec) throws IOException {
+        if (length > 0 && data[offset] != JAVA_STREAM_MAGIC) {
+            return BinaryCodec.decode(data, offset, length);
+        }
+        if (codec != Codec.JAVA) {
+            throw new IOException("Frame de serialização Java recusado (só aceite com -Dkahoot.codec=java)");
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data, offset, length))) {
+            Object obj = in.readObject();
+            if (!(obj instanceof Message)) {
+                throw new IOException("Frame não contém uma mensagem: " + obj.getClass().getName());
+            }
+            return (Message) obj;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Tipo de mensagem desconhecido: " + e.getMessage(), e);
+        }
+    }
+
+    // Frame completo (cabeçalho + payload) pronto a escrever num canal
+    public static ByteBuffer toFrame(Message msg) throws IOException {
+        byte[] payload = encode(msg);
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        frame.putInt(payload.length).put(payload).flip();
+        return frame;
+    }
+
+    public static void writeFrame(DataOutputStream out, Message msg) throws IOException {
+        byte[] payload = encode(msg);
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.flush();
+    }
+
+    public static Message readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        checkLength(length);
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return decode(payload, 0, length);
+    }
+
+    public static void checkLength(int length) throws IOException {
+        if (length < 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Tamanho de frame inválido: " + length);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package kahoot.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador monotónico sem contenção (LongAdder). A taxa por segundo é calculada
+ * pelo MetricsRegistry a cada amostragem, fora do caminho quente.
+ */
+public final class Counter {
+    private final LongAdder count = new LongAdder();
+    private long lastCount;
+    private long lastSampleNanos = System.nanoTime();
+    private volatile double rate; // por segundo, na última amostragem
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long n) {
+        count.add(n);
+    }
+
+    public long get() {
+        return count.sum();
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    // Chamado só pela amostragem periódica do registo
+    synchronized void sample(long nowNanos) {
+        long current = count.sum();
+        long elapsed = nowNanos - lastSampleNanos;
+        if (elapsed > 0) {
+            rate = (current - lastCount) * 1e9 / elapsed;
+        }
+        lastCount = current;
+        lastSampleNanos = nowNanos;
+    }
+}
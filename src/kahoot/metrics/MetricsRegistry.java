@@ -0,0 +1,183 @@
+package kahoot.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+import javax.management.*;
+
+/**
+ * Registo de métricas do processo: contadores, gauges e histogramas de latência, por nome.
+ * O código do caminho quente obtém a métrica uma vez (campo static final) e depois só
+ * incrementa/regista. As métricas são expostas por JMX (kahoot:type=Metrics, um
+ * atributo por valor) e em texto pelo comando "metrics" da consola do servidor.
+ */
+public final class MetricsRegistry {
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    // Histograma mantido por outro componente (ex.: atraso do temporizador)
+    public void register(String name, LatencyHistogram histogram) {
+        histograms.put(name, histogram);
+    }
+
+    // Valor lido no momento da consulta; substitui um gauge anterior com o mesmo nome
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    // Atualiza as taxas por segundo dos contadores (chamado periodicamente)
+    public void sampleRates() {
+        long now = System.nanoTime();
+        for (Counter counter : counters.values()) {
+            counter.sample(now);
+        }
+    }
+
+    public List<String> dump() {
+        List<String> lines = new ArrayList<>();
+        counters.forEach((name, c) -> lines.add(name + " = " + c.get() + " (" + format("%.1f", c.getRate()) + "/s)"));
+        gauges.forEach((name, g) -> lines.add(name + " = " + g.getAsLong()));
+        histograms.forEach((name, h) -> lines.add(name + ": n=" + h.getCount()
+                + " média " + micros(h.getMeanNanos()) + " | p50 " + micros(h.getPercentileNanos(50))
+                + " | p90 " + micros(h.getPercentileNanos(90)) + " | p99 " + micros(h.getPercentileNanos(99))
+                + " | p99.9 " + micros(h.getPercentileNanos(99.9)) + " | máx. " + micros(h.getMaxNanos())));
+        return lines;
+    }
+
+    private static String micros(long nanos) {
+        return format("%.1f", nanos / 1000.0) + " µs";
+    }
+
+    private static String format(String pattern, double value) {
+        return String.format(Locale.ROOT, pattern, value);
+    }
+
+    // Regista o MBean no servidor JMX da plataforma (uma vez por processo)
+    public void registerMBean() {
+        try {
+            ObjectName name = new ObjectName("kahoot:type=Metrics");
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBean(), name);
+            }
+        } catch (InstanceAlreadyExistsException e) {
+            // Outro servidor no mesmo processo já o registou
+        } catch (JMException e) {
+            System.err.println("Não foi possível registar as métricas em JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Atributos só de leitura, calculados a cada pedido: "nome" e "nome.rate" para
+     * contadores, "nome" para gauges e "nome.count|mean|p50|p90|p99|p999|max" (µs) para histogramas.
+     */
+    private final class MetricsMBean implements DynamicMBean {
+        private static final String[] HISTOGRAM_FIELDS = {"count", "mean", "p50", "p90", "p99", "p999", "max"};
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Counter counter = counters.get(attribute);
+            if (counter != null) {
+                return counter.get();
+            }
+            LongSupplier gauge = gauges.get(attribute);
+            if (gauge != null) {
+                return gauge.getAsLong();
+            }
+            int dot = attribute.lastIndexOf('.');
+            if (dot > 0) {
+                String name = attribute.substring(0, dot);
+                String field = attribute.substring(dot + 1);
+                if (field.equals("rate") && counters.containsKey(name)) {
+                    return counters.get(name).getRate();
+                }
+                LatencyHistogram histogram = histograms.get(name);
+                if (histogram != null && Arrays.asList(HISTOGRAM_FIELDS).contains(field)) {
+                    return switch (field) {
+                        case "count" -> histogram.getCount();
+                        case "mean" -> histogram.getMeanNanos() / 1000;
+                        case "p50" -> histogram.getPercentileNanos(50) / 1000;
+                        case "p90" -> histogram.getPercentileNanos(90) / 1000;
+                        case "p99" -> histogram.getPercentileNanos(99) / 1000;
+                        case "p999" -> histogram.getPercentileNanos(99.9) / 1000;
+                        default -> histogram.getMaxNanos() / 1000;
+                    };
+                }
+            }
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                try {
+                    list.add(new Attribute(attribute, getAttribute(attribute)));
+                } catch (AttributeNotFoundException e) {
+                    // Atributos desconhecidos são omitidos
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Métricas só de leitura: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        // Recalculado a cada pedido - métricas registadas depois do MBean também aparecem
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (String name : counters.keySet()) {
+                attributes.add(attribute(name, "long", "Contador"));
+                attributes.add(attribute(name + ".rate", "double", "Taxa por segundo"));
+            }
+            for (String name : gauges.keySet()) {
+                attributes.add(attribute(name, "long", "Gauge"));
+            }
+            for (String name : histograms.keySet()) {
+                for (String field : HISTOGRAM_FIELDS) {
+                    attributes.add(attribute(name + "." + field, "long",
+                            field.equals("count") ? "Amostras" : "Latência (µs)"));
+                }
+            }
+            return new MBeanInfo(MetricsRegistry.class.getName(), "Métricas do servidor Kahoot",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+
+        private MBeanAttributeInfo attribute(String name, String type, String description) {
+            return new MBeanAttributeInfo(name, type, description, true, false, false);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package kahoot.server;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Respostas de uma ronda indexadas pelo slot do jogador (0..N-1, atribuído na inscrição).
+ * Guarda quem já respondeu num bitset e as respostas num array de inteiros, sem
+ * chaves String nem Integer em caixa. Um segundo bitset marca os slots já descontados
+ * do contador/barreira da ronda (pela resposta ou por o jogador se ter desligado), para
+ * que cada jogador conte no máximo uma vez. Guarda também os pontos que cada jogador
+ * ganhou na ronda (enviados no fim da pergunta). As folhas são reutilizadas entre rondas.
+ */
+public final class AnswerSheet {
+    public static final int NO_ANSWER = -1;
+
+    private final AtomicLongArray answeredBits;
+    private final AtomicLongArray countedBits;
+    private final AtomicIntegerArray answers;
+    private final AtomicIntegerArray points;
+
+    public AnswerSheet(int players) {
+        this.answeredBits = new AtomicLongArray((players + 63) >>> 6);
+        this.countedBits = new AtomicLongArray((players + 63) >>> 6);
+        this.answers = new AtomicIntegerArray(players);
+        this.points = new AtomicIntegerArray(players);
+        clear();
+    }
+
+    // Marca o jogador como tendo respondido; false se já tinha respondido (duplicado)
+    public boolean markAnswered(int slot) {
+        return claim(answeredBits, slot);
+    }
+
+    // Desconta o jogador do contador/barreira da ronda; false se já tinha sido descontado
+    public boolean markCounted(int slot) {
+        return claim(countedBits, slot);
+    }
+
+    private static boolean claim(AtomicLongArray bits, int slot) {
+        int word = slot >>> 6;
+        long bit = 1L << (slot & 63);
+        while (true) {
+            long current = bits.get(word);
+            if ((current & bit) != 0) {
+                return false;
+            }
+            if (bits.compareAndSet(word, current, current | bit)) {
+                return true;
+            }
+        }
+    }
+
+    public void setAnswer(int slot, int answer) {
+        answers.set(slot, answer);
+    }
+
+    public int getAnswer(int slot) {
+        return answers.get(slot);
+    }
+
+    public void setPoints(int slot, int roundPoints) {
+        points.set(slot, roundPoints);
+    }
+
+    public int getPoints(int slot) {
+        return points.get(slot);
+    }
+
+    public int capacity() {
+        return answers.length();
+    }
+
+    // Prepara a folha para uma nova ronda
+    public void clear() {
+        for (int i = 0; i < answeredBits.length(); i++) {
+            answeredBits.set(i, 0L);
+            countedBits.set(i, 0L);
+        }
+        for (int i = 0; i < answers.length(); i++) {
+            answers.set(i, NO_ANSWER);
+            points.set(i, 0);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package kahoot.server;
+
+import kahoot.messages.Message;
+import kahoot.log.Log;
+import kahoot.metrics.LatencyHistogram;
+import kahoot.metrics.MetricsRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envio de uma mensagem a vários clientes: codifica uma vez, coloca o mesmo frame
+ * na fila de saída de cada ligação (sem bloquear) e mede a latência do fan-out
+ * até a última ligação ter escrito o frame.
+ */
+public class Broadcast {
+    private static final LatencyHistogram ENQUEUE_TIME = MetricsRegistry.global().histogram("broadcast.enqueue");
+    private static final LatencyHistogram DELIVERY_TIME = MetricsRegistry.global().histogram("broadcast.delivery");
+
+    private final String label;
+    private final int recipients;
+    private final long startNanos;
+    private final AtomicInteger pending;
+    private volatile long enqueuedNanos;
+
+    private Broadcast(String label, int recipients) {
+        this.label = label;
+        this.recipients = recipients;
+        this.startNanos = System.nanoTime();
+        // +1: o próprio envio só conta como concluído depois de enfileirar em todas as ligações
+        this.pending = new AtomicInteger(recipients + 1);
+    }
+
+    public static void send(Message msg, Collection<ClientConnection> clients) {
+        List<ClientConnection> recipients = new ArrayList<>(clients);
+        Broadcast broadcast = new Broadcast(msg.getClass().getSimpleName(), recipients.size());
+
+        OutboundFrame frame;
+        try {
+            frame = OutboundFrame.of(msg, broadcast);
+        } catch (IOException e) {
+            Log.error("Erro ao codificar {}: {}", broadcast.label, e.getMessage());
+            return;
+        }
+
+        for (ClientConnection client : recipients) {
+            client.sendFrame(frame);
+        }
+        broadcast.enqueuedNanos = System.nanoTime() - broadcast.startNanos;
+        broadcast.delivered();
+    }
+
+    void delivered() {
+        if (pending.decrementAndGet() == 0) {
+            report();
+        }
+    }
+
+    private void report() {
+        long totalNanos = System.nanoTime() - startNanos;
+        ENQUEUE_TIME.record(enqueuedNanos);
+        DELIVERY_TIME.record(totalNanos);
+        if (Log.isDebugEnabled()) {
+            Log.debug("📡 {} → {} clientes: enfileirado em {} µs, entregue em {} µs", label, recipients,
+                    enqueuedNanos / 1000, totalNanos / 1000);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package kahoot.server;
+
+import kahoot.messages.*;
+import kahoot.log.Log;
+import kahoot.metrics.Counter;
+import kahoot.metrics.MetricsRegistry;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ligação de um cliente ao servidor, independente do transporte usado
+ * (thread por cliente em DealWithClient ou event loop NIO em NioTransport).
+ */
+public abstract class ClientConnection {
+    static final Counter CLOSED = MetricsRegistry.global().counter("connections.closed");
+
+    protected final GameServer server;
+    protected final OutboundQueue outbound;
+    protected volatile String username;
+    protected volatile String gameId;
+    private final AtomicBoolean connected = new AtomicBoolean(true);
+    private final AtomicBoolean closing = new AtomicBoolean(); // fila cheia: desligar já agendado
+    private volatile long lastSeenNanos; // última mensagem recebida (lido pelo HeartbeatMonitor)
+
+    protected ClientConnection(GameServer server) {
+        this.server = server;
+        this.outbound = server.newOutboundQueue();
+        this.lastSeenNanos = System.nanoTime();
+    }
+
+    // Coloca um frame já codificado na fila de saída da ligação, sem bloquear
+    // (pode ser chamado por qualquer thread; o frame pode ser partilhado por várias ligações)
+    public void sendFrame(OutboundFrame frame) {
+        if (!isConnected()) {
+            frame.done();
+            return;
+        }
+        if (!outbound.offer(frame)) {
+            frame.done();
+            Log.warn("Cliente lento desligado: {} (fila de saída cheia)", username);
+            disconnectLater();
+            return;
+        }
+        onFrameQueued();
+    }
+
+    /**
+     * Fecha a ligação para envios já e desliga-a noutra thread (pool de tarefas do servidor).
+     * Quem envia pode estar a meio de um broadcast com o monitor do jogo: desligar aqui
+     * reentrava no GameState (removePlayer, fim da ronda, próxima pergunta) a meio do envio.
+     */
+    private void disconnectLater() {
+        if (closing.compareAndSet(false, true)) {
+            server.execute(this::disconnect);
+        }
+    }
+
+    // Avisa o transporte de que há frames para escrever
+    protected void onFrameQueued() {
+    }
+
+    // Envia uma mensagem só a este cliente
+    public void sendMessage(Message msg) {
+        try {
+            sendFrame(OutboundFrame.of(msg));
+        } catch (IOException e) {
+            Log.error("Erro ao codificar mensagem para {}: {}", username, e.getMessage());
+        }
+    }
+
+    // Fecha os recursos do transporte (socket, streams, canal)
+    protected abstract void closeTransport();
+
+    protected void handleMessage(Message msg) {
+        lastSeenNanos = System.nanoTime();
+        if (msg instanceof EnrollmentMessage) {
+            handleEnrollment((EnrollmentMessage) msg);
+        } else if (msg instanceof ResumeMessage) {
+            handleResume((ResumeMessage) msg);
+        } else if (msg instanceof AnswerMessage) {
+            handleAnswer((AnswerMessage) msg);
+        } else if (msg instanceof PongMessage) {
+            // O timestamp é o System.nanoTime() do servidor no envio do ping
+            HeartbeatMonitor.RTT.record(lastSeenNanos - ((PongMessage) msg).getTimestamp());
+        } else if (msg instanceof PingMessage) {
+            sendMessage(new PongMessage(gameId, null, username, ((PingMessage) msg).getTimestamp()));
+        }
+    }
+
+    private void handleEnrollment(EnrollmentMessage msg) {
+        if (isBlank(msg.getGameId()) || isBlank(msg.getTeamId()) || isBlank(msg.getUsername())) {
+            sendMessage(new ErrorMessage(msg.getGameId(), msg.getTeamId(), msg.getUsername(),
+                    "Inscrição inválida: jogo, equipa e username são obrigatórios"));
+            disconnectAfterFlush();
+            return;
+        }
+        this.gameId = msg.getGameId();
+        this.username = msg.getUsername();
+
+        GameState game = server.getGame(gameId);
+        if (game == null) {
+            sendMessage(new ErrorMessage(gameId, "", username, "Jogo não encontrado: " + gameId));
+            disconnectAfterFlush();
+            return;
+        }
+
+        String token = game.addPlayer(msg.getTeamId(), username, this);
+        if (token == null) {
+            sendMessage(new ErrorMessage(gameId, msg.getTeamId(), username,
+                    "Não foi possível juntar-se ao jogo. Equipa cheia ou username duplicado."));
+            disconnectAfterFlush();
+        } else {
+            sendMessage(new ErrorMessage(gameId, msg.getTeamId(), username, "SUCCESS: Juntou-se à equipa " + msg.getTeamId()));
+            sendMessage(new SessionMessage(gameId, msg.getTeamId(), username, token));
+        }
+    }
+
+    // Nova ligação de um jogador já inscrito: o GameState reenvia o estado atual
+    private void handleResume(ResumeMessage msg) {
+        if (isBlank(msg.getGameId()) || isBlank(msg.getUsername())) {
+            sendMessage(new ErrorMessage(msg.getGameId(), msg.getTeamId(), msg.getUsername(),
+                    "Sessão inválida: jogo e username são obrigatórios"));
+            disconnectAfterFlush();
+            return;
+        }
+        GameState game = server.getGame(msg.getGameId());
+        if (game == null) {
+            sendMessage(new ErrorMessage(msg.getGameId(), "", msg.getUsername(), "Jogo não encontrado: " + msg.getGameId()));
+            disconnectAfterFlush();
+            return;
+        }
+
+        this.gameId = msg.getGameId();
+        this.username = msg.getUsername();
+        if (!game.resumePlayer(username, msg.getToken(), this)) {
+            sendMessage(new ErrorMessage(gameId, msg.getTeamId(), username, "Sessão inválida ou expirada: " + username));
+            disconnectAfterFlush();
+        }
+    }
+
+    private void handleAnswer(AnswerMessage msg) {
+        if (isBlank(msg.getTeamId()) || isBlank(msg.getUsername())) {
+            return; // Não pode ser de nenhum jogador inscrito
+        }
+        GameState game = server.getGame(gameId);
+        if (game != null) {
+            game.processAnswer(msg);
+        }
+    }
+
+    private static boolean isBlank(String id) {
+        return id == null || id.isEmpty();
+    }
+
+    // Desliga depois de escrever as mensagens já enfileiradas (ex.: o erro de inscrição)
+    protected void disconnectAfterFlush() {
+        sendFrame(OutboundFrame.CLOSE);
+    }
+
+    public void disconnect() {
+        // Só a primeira chamada desliga (leitura, heartbeat e fila cheia podem competir)
+        if (!connected.compareAndSet(true, false)) {
+            return;
+        }
+        CLOSED.increment();
+        server.untrack(this);
+
+        // Notificar GameState sobre desconexão
+        if (gameId != null && username != null) {
+            GameState game = server.getGame(gameId);
+            if (game != null) {
+                game.removePlayer(username, this);
+            }
+        }
+
+        closeTransport();
+    }
+
+    public boolean isConnected() {
+        return connected.get() && !closing.get();
+    }
+
+    public OutboundQueue getOutboundQueue() {
+        return outbound;
+    }
+
+    public long getLastSeenNanos() {
+        return lastSeenNanos;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+}
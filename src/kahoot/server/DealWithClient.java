@@ -1,108 +1,83 @@
 package kahoot.server;
 
 import kahoot.messages.*;
+import kahoot.log.Log;
 import java.io.*;
 import java.net.*;
 
-public class DealWithClient implements Runnable {
+/**
+ * Ligação bloqueante (thread por cliente). Cada ligação usa duas threads: a que lê,
+ * do threadPool do servidor, e uma thread de escrita própria criada pelo
+ * GameServer.newThread. Em modo platform são por isso até 10 threads de leitura (pool
+ * fixo) mais uma thread de plataforma por ligação; a escrita não usa o pool fixo, porque
+ * cada escritor fica bloqueado em take() enquanto a ligação vive e cinco ligações
+ * esgotariam o pool. Em modo virtual as duas são threads virtuais.
+ */
+public class DealWithClient extends ClientConnection implements Runnable {
     private final Socket clientSocket;
-    private final GameServer server;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
-    private String username;
-    private String gameId;
-    private boolean connected;
+    private DataOutputStream out;
+    private DataInputStream in;
+    private Thread writer;
 
     public DealWithClient(Socket socket, GameServer server) {
+        super(server);
         this.clientSocket = socket;
-        this.server = server;
-        this.connected = true;
-        
-        // Configurar timeout de conexão (60 segundos)
-        try {
-            socket.setSoTimeout(60000);
-        } catch (SocketException e) {
-            System.err.println("Erro ao configurar timeout: " + e.getMessage());
-        }
     }
 
     @Override
     public void run() {
         try {
-            out = new ObjectOutputStream(clientSocket.getOutputStream());
-            in = new ObjectInputStream(clientSocket.getInputStream());
+            out = new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
+            in = new DataInputStream(new BufferedInputStream(clientSocket.getInputStream()));
 
-            while (connected) {
-                try {
-                    Object obj = in.readObject();
-                    if (obj instanceof EnrollmentMessage) {
-                        handleEnrollment((EnrollmentMessage) obj);
-                    } else if (obj instanceof AnswerMessage) {
-                        handleAnswer((AnswerMessage) obj);
-                    }
-                } catch (java.net.SocketTimeoutException e) {
-                    // Timeout - cliente inativo, mas manter conexão
-                    // TODO: Pode ser usado para heartbeat no futuro
-                    continue;
-                }
+            // Escritas numa thread própria: quem envia (GameState, timer) nunca bloqueia no socket
+            writer = server.newThread(this::writeFrames);
+            writer.start();
+
+            // Sem timeout de leitura: clientes inativos são fechados pelo HeartbeatMonitor
+            while (isConnected()) {
+                handleMessage(WireFormat.readFrame(in));
             }
 
-        } catch (IOException | ClassNotFoundException e) {
-            System.out.println("Cliente desconectado: " + (username != null ? username : "Unknown"));
+        } catch (IOException e) {
+            Log.info("Cliente desconectado: {}", username != null ? username : "Unknown");
+        } catch (RuntimeException e) {
+            // Uma mensagem que rebenta o handler fecha só esta ligação (a thread volta ao pool)
+            Log.error("Erro ao processar mensagem de {}, a desligar", username, e);
         } finally {
             disconnect();
         }
     }
 
-    private void handleEnrollment(EnrollmentMessage msg) {
-        this.gameId = msg.getGameId();
-        this.username = msg.getUsername();
-
-        GameState game = server.getGame(gameId);
-        if (game == null) {
-            sendMessage(new ErrorMessage(gameId, "", username, "Jogo não encontrado: " + gameId));
-            disconnect();
-            return;
-        }
-
-        boolean success = game.addPlayer(msg.getTeamId(), username, this);
-        if (!success) {
-            sendMessage(new ErrorMessage(gameId, msg.getTeamId(), username,
-                    "Não foi possível juntar-se ao jogo. Equipa cheia ou username duplicado."));
-            disconnect();
-        } else {
-            sendMessage(new ErrorMessage(gameId, msg.getTeamId(), username, "SUCCESS: Juntou-se à equipa " + msg.getTeamId()));
-        }
-    }
-
-    private void handleAnswer(AnswerMessage msg) {
-        GameState game = server.getGame(gameId);
-        if (game != null) {
-            game.processAnswer(msg);
-        }
-    }
-
-    public void sendMessage(Message msg) {
+    private void writeFrames() {
         try {
-            out.writeObject(msg);
-            out.flush();
+            while (isConnected()) {
+                OutboundFrame frame = outbound.take();
+                if (frame == OutboundFrame.CLOSE) {
+                    disconnect();
+                    return;
+                }
+                try {
+                    frame.writeTo(out);
+                    out.flush();
+                } finally {
+                    frame.done();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Ligação fechada
         } catch (IOException e) {
-            System.out.println("Erro ao enviar mensagem para " + username);
+            Log.warn("Erro ao enviar mensagem para {}", username);
             disconnect();
         }
     }
 
-    private void disconnect() {
-        connected = false;
-        
-        // Notificar GameHandler sobre desconexão
-        if (gameId != null && username != null) {
-            GameState game = server.getGame(gameId);
-            if (game != null) {
-                game.removePlayer(username);
-            }
+    @Override
+    protected void closeTransport() {
+        if (writer != null && writer != Thread.currentThread()) {
+            writer.interrupt();
         }
-        
+        outbound.clear();
         try {
             if (in != null) in.close();
             if (out != null) out.close();
@@ -111,8 +86,4 @@ public class DealWithClient implements Runnable {
             // Ignorar
         }
     }
-
-    public String getUsername() {
-        return username;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,143 @@
+package kahoot.server;
+
+import kahoot.messages.BinaryCodec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Registo dos jogos ativos, partilhado entre a consola e todas as ligações.
+ * Os jogos estão repartidos por shards (um ConcurrentHashMap cada), a procura
+ * não usa locks e os IDs vêm de um contador monotónico, por isso nunca se
+ * repetem depois de um jogo ser removido. Os IDs dos jogos registados (e das
+ * suas equipas) são os únicos que o BinaryCodec partilha ao descodificar.
+ */
+public class GameRegistry {
+    private final Shard[] shards;
+    private final AtomicLong nextId;
+
+    private static final class Shard {
+        final Map<String, GameState> games = new ConcurrentHashMap<>();
+        final LongAdder created = new LongAdder();
+        final LongAdder evicted = new LongAdder();
+    }
+
+    public GameRegistry(int numShards) {
+        if (numShards < 1) {
+            throw new IllegalArgumentException("Número de shards deve ser positivo");
+        }
+        this.shards = new Shard[numShards];
+        for (int i = 0; i < numShards; i++) {
+            shards[i] = new Shard();
+        }
+        this.nextId = new AtomicLong();
+    }
+
+    public String allocateId() {
+        return "game" + nextId.incrementAndGet();
+    }
+
+    public void register(GameState game) {
+        Shard shard = shardFor(game.getGameId());
+        if (shard.games.putIfAbsent(game.getGameId(), game) != null) {
+            throw new IllegalStateException("Jogo já registado: " + game.getGameId());
+        }
+        shard.created.increment();
+        BinaryCodec.internId(game.getGameId());
+        for (String teamId : game.getTeamIds()) {
+            BinaryCodec.internId(teamId); // "Team1".."TeamN", comuns a todos os jogos
+        }
+    }
+
+    public GameState get(String gameId) {
+        if (gameId == null) {
+            return null;
+        }
+        return shardFor(gameId).games.get(gameId);
+    }
+
+    public GameState remove(String gameId) {
+        Shard shard = shardFor(gameId);
+        GameState removed = shard.games.remove(gameId);
+        if (removed != null) {
+            shard.evicted.increment();
+            BinaryCodec.releaseId(gameId);
+        }
+        return removed;
+    }
+
+    // Remove jogos terminados há mais de graceMillis (dá tempo aos clientes para verem os resultados)
+    public int evictFinished(long graceMillis) {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (Shard shard : shards) {
+            for (GameState game : shard.games.values()) {
+                if (game.isFinished() && now - game.getFinishedAt() >= graceMillis
+                        && shard.games.remove(game.getGameId(), game)) {
+                    shard.evicted.increment();
+                    BinaryCodec.releaseId(game.getGameId());
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    public void forEach(Consumer<GameState> action) {
+        for (Shard shard : shards) {
+            shard.games.values().forEach(action);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.games.size();
+        }
+        return size;
+    }
+
+    public long getCreatedCount() {
+        long created = 0;
+        for (Shard shard : shards) {
+            created += shard.created.sum();
+        }
+        return created;
+    }
+
+    public long getEvictedCount() {
+        long evicted = 0;
+        for (Shard shard : shards) {
+            evicted += shard.evicted.sum();
+        }
+        return evicted;
+    }
+
+    public List<String> shardStats() {
+        List<String> lines = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            Shard shard = shards[i];
+            int finished = 0;
+            int players = 0;
+            for (GameState game : shard.games.values()) {
+                if (game.isFinished()) {
+                    finished++;
+                }
+                players += game.getPlayerCount();
+            }
+            lines.add("shard " + i + ": " + shard.games.size() + " jogos (" + finished + " terminados), "
+                    + players + " jogadores, criados " + shard.created.sum() + ", removidos " + shard.evicted.sum());
+        }
+        return lines;
+    }
+
+    private Shard shardFor(String gameId) {
+        int h = gameId.hashCode();
+        h ^= (h >>> 16); // espalhar os bits altos - IDs sequenciais diferem sobretudo no fim
+        return shards[(h & 0x7fffffff) % shards.length];
+    }
+}
@@ -1,47 +1,149 @@
 package kahoot.server;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.HashMap;
-import java.util.Map;
+import kahoot.coordination.TimerWheel;
+import kahoot.log.Log;
+import kahoot.metrics.Counter;
+import kahoot.metrics.MetricsRegistry;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Scanner;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
-public class GameServer {
+public final class GameServer {
+    private static final long FINISHED_GAME_GRACE_MS = 10_000; // resultados ficam visíveis 10s antes da limpeza
+    private static final long LEADERBOARD_MAINTENANCE_SECONDS = 60;
+    static final Counter ACCEPTED = MetricsRegistry.global().counter("connections.accepted");
+
+    private final ServerConfig config;
     private ServerSocket serverSocket;
-    private final Map<String, GameState> activeGames;
+    private NioTransport nioTransport;
+    private final GameRegistry games;
+    private final TimerWheel timers; // prazos das perguntas e limpeza de jogos, uma só thread
     private final ExecutorService threadPool;
-    private boolean running;
+    private final ExecutorService taskPool; // o que os prazos disparam (fim de ronda, desligar), fora da thread do temporizador
+    private final ThreadFactory threadFactory; // threads auxiliares (escrita das ligações bloqueantes)
+    private final MetricsRegistry metrics;
+    private final HeartbeatMonitor heartbeat;
+    private final GlobalLeaderboard leaderboard; // null se desligada
+    private volatile boolean running;
 
-    public GameServer(int port) throws IOException {
-        this.serverSocket = new ServerSocket(port);
-        this.activeGames = new HashMap<>();
-        this.threadPool = Executors.newFixedThreadPool(10);
+    public GameServer(ServerConfig config) throws IOException {
+        this.config = config;
+        this.games = new GameRegistry(config.getRegistryShards());
+        this.timers = new TimerWheel("kahoot-timer", 10, 512); // ticks de 10 ms, uma volta = 5,12 s
+        this.timers.start(); // os jogos criados sem listen() (testes, benchmarks) também usam prazos
+        this.metrics = MetricsRegistry.global();
+        this.heartbeat = new HeartbeatMonitor(this, config.getHeartbeatIntervalMs(), config.getHeartbeatTimeoutMs());
+        this.leaderboard = config.getLeaderboardFile() != null
+                ? new GlobalLeaderboard(Paths.get(config.getLeaderboardFile())) : null;
         this.running = true;
+
+        if (config.getThreadMode() == ServerConfig.ThreadMode.VIRTUAL) {
+            // Uma thread virtual por tarefa: bloquear em readObject/await quase não tem custo
+            this.threadFactory = Thread.ofVirtual().name("kahoot-virtual-", 0).factory();
+            this.threadPool = Executors.newThreadPerTaskExecutor(threadFactory);
+            this.taskPool = threadPool;
+        } else {
+            this.threadFactory = Thread.ofPlatform().name("kahoot-", 0).factory();
+            this.threadPool = config.getTransport() == ServerConfig.Transport.NIO
+                    // Os event loops tratam do I/O; o pool só processa mensagens, que já não bloqueiam
+                    // (barreiras e contador sem espera), por isso basta uma thread por núcleo
+                    ? Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+                            Thread.ofPlatform().name("kahoot-handler-", 0).factory())
+                    : Executors.newFixedThreadPool(10);
+            this.taskPool = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+                    Thread.ofPlatform().name("kahoot-task-", 0).daemon(true).factory());
+        }
+
+        if (config.getTransport() == ServerConfig.Transport.NIO) {
+            this.nioTransport = new NioTransport(this, config.getPort(), config.getEventLoops(), threadPool);
+        } else {
+            this.serverSocket = new ServerSocket(config.getPort());
+        }
+        registerMetrics();
     }
 
-    public void start() {
-        System.out.println("Servidor Kahoot iniciado na porta " + serverSocket.getLocalPort());
-        System.out.println("Comandos: new <num_equipas> <jogadores_por_equipa> <num_perguntas>");
+    // Gauges lidos só quando as métricas são consultadas (comando metrics ou JMX)
+    private void registerMetrics() {
+        metrics.gauge("connections.active", () -> ACCEPTED.get() - ClientConnection.CLOSED.get());
+        metrics.gauge("connections.monitored", heartbeat::size);
+        metrics.gauge("games.active", games::size);
+        metrics.gauge("games.created", games::getCreatedCount);
+        metrics.gauge("games.evicted", games::getEvictedCount);
+        if (leaderboard != null) {
+            metrics.gauge("leaderboard.players", () -> leaderboard.size("all"));
+        }
+        metrics.gauge("queue.dropped", OutboundQueue::getTotalDropped);
+        metrics.gauge("queue.coalesced", OutboundQueue::getTotalCoalesced);
+        metrics.gauge("queue.overflows", OutboundQueue::getTotalOverflows);
+        metrics.gauge("log.dropped", Log::getDropped);
+        metrics.gauge("timer.pending", timers::getPendingCount);
+        metrics.gauge("timer.cancelled", timers::getCancelledCount);
+        metrics.register("timer.jitter", timers.getJitterHistogram());
+        metrics.registerMBean();
+    }
 
-        // Thread para aceitar conexões
-        new Thread(this::acceptConnections).start();
+    public void start() {
+        listen();
+        System.out.println("Comandos: new <num_equipas> <jogadores_por_equipa> <num_perguntas> [quiz]");
 
         // Thread para interface de comandos
         new Thread(this::handleCommands).start();
     }
 
+    // Aceita ligações sem a consola de comandos (ex.: servidor embebido no gerador de carga)
+    public void listen() {
+        if (nioTransport != null) {
+            System.out.println("Servidor Kahoot iniciado na porta " + nioTransport.getLocalPort()
+                    + " (transporte NIO, " + config.getEventLoops() + " event loops)");
+            nioTransport.start();
+        } else {
+            System.out.println("Servidor Kahoot iniciado na porta " + serverSocket.getLocalPort());
+
+            // Thread para aceitar conexões
+            new Thread(this::acceptConnections).start();
+        }
+        System.out.println("Threads: " + config.getThreadMode().name().toLowerCase());
+        if (heartbeat.isEnabled()) {
+            System.out.println("Heartbeat: ping a cada " + config.getHeartbeatIntervalMs() + " ms, timeout "
+                    + config.getHeartbeatTimeoutMs() + " ms");
+        }
+        heartbeat.start();
+
+        // Remover jogos terminados e atualizar as taxas das métricas
+        timers.schedule(this::evictFinishedGames, 1, TimeUnit.SECONDS);
+        timers.schedule(this::sampleMetrics, 1, TimeUnit.SECONDS);
+        if (leaderboard != null) {
+            timers.schedule(this::maintainLeaderboard, LEADERBOARD_MAINTENANCE_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    public int getLocalPort() {
+        return nioTransport != null ? nioTransport.getLocalPort() : serverSocket.getLocalPort();
+    }
+
     private void acceptConnections() {
         while (running) {
             try {
                 Socket clientSocket = serverSocket.accept();
-                System.out.println("Nova conexão: " + clientSocket.getInetAddress());
-                threadPool.execute(new DealWithClient(clientSocket, this));
+                ACCEPTED.increment();
+                Log.info("Nova conexão: {}", clientSocket.getInetAddress());
+                DealWithClient client = new DealWithClient(clientSocket, this);
+                track(client);
+                threadPool.execute(client);
             } catch (IOException e) {
                 if (running) {
-                    System.out.println("Erro ao aceitar conexão: " + e.getMessage());
+                    Log.warn("Erro ao aceitar conexão: {}", e.getMessage());
                 }
             }
         }
@@ -57,11 +159,25 @@ public class GameServer {
                 handleNewGame(command);
             } else if (command.equals("list")) {
                 handleListGames();
+            } else if (command.startsWith("top")) {
+                handleTopPlayers(command);
+            } else if (command.equals("shards")) {
+                handleShardStats();
+            } else if (command.equals("timers")) {
+                handleTimerStats();
+            } else if (command.equals("threads")) {
+                handleThreadStats();
+            } else if (command.equals("queues")) {
+                handleQueueStats();
+            } else if (command.equals("metrics")) {
+                handleMetrics();
+            } else if (command.startsWith("log")) {
+                handleLogLevel(command);
             } else if (command.equals("exit")) {
                 shutdown();
                 break;
             } else if (!command.isEmpty()) {
-                System.out.println("Comando desconhecido. Use: new, list, exit");
+                System.out.println("Comando desconhecido. Use: new, list, top, shards, timers, threads, queues, metrics, log, exit");
             }
         }
         scanner.close();
@@ -69,8 +185,8 @@ public class GameServer {
 
     private void handleNewGame(String command) {
         String[] parts = command.split(" ");
-        if (parts.length != 4) {
-            System.out.println("Uso: new <num_equipas> <jogadores_por_equipa> <num_perguntas>");
+        if (parts.length != 4 && parts.length != 5) {
+            System.out.println("Uso: new <num_equipas> <jogadores_por_equipa> <num_perguntas> [quiz]");
             return;
         }
 
@@ -84,10 +200,8 @@ public class GameServer {
                 return;
             }
 
-            // GERAR GAME ID MAIS SIMPLES
-            String gameId = "game" + (activeGames.size() + 1);
-            GameState game = new GameState(gameId, numTeams, playersPerTeam, numQuestions,  this);
-            activeGames.put(gameId, game);
+            String quizName = parts.length == 5 ? parts[4] : null;
+            String gameId = createGame(numTeams, playersPerTeam, numQuestions, quizName).getGameId();
 
             System.out.println("🎮 JOGO CRIADO: " + gameId);
             System.out.println("   Equipas: " + numTeams);
@@ -97,46 +211,264 @@ public class GameServer {
 
         } catch (NumberFormatException e) {
             System.out.println("Parâmetros inválidos. Use números inteiros.");
+        } catch (RuntimeException e) {
+            // Quiz desconhecido ou ficheiro de quizzes inválido - a consola continua disponível
+            System.out.println("Não foi possível criar o jogo: " + e.getMessage());
         }
     }
 
+    // Cria e regista um jogo; lança RuntimeException se o quiz não existir ou não puder ser lido
+    public GameState createGame(int numTeams, int playersPerTeam, int numQuestions, String quizName) {
+        String gameId = games.allocateId();
+        GameState game = new GameState(gameId, numTeams, playersPerTeam, numQuestions, quizName, this);
+        games.register(game);
+        return game;
+    }
+
     private void handleListGames() {
-        if (activeGames.isEmpty()) {
+        if (games.size() == 0) {
             System.out.println("Nenhum jogo ativo");
             return;
         }
 
         System.out.println("Jogos ativos:");
-        for (String gameId : activeGames.keySet()) {
-            GameState game = activeGames.get(gameId);
-            System.out.println(" - " + gameId + ": " + game.getPlayerCount() + " jogadores conectados");
+        games.forEach(game -> System.out.println(" - " + game.getGameId() + ": " + game.getPlayerCount()
+                + " jogadores conectados" + (game.isFinished() ? " (terminado)" : "")));
+    }
+
+    // top [all|1h|24h|7d] [n]: melhores jogadores de todos os jogos terminados
+    private void handleTopPlayers(String command) {
+        if (leaderboard == null) {
+            System.out.println("Classificação global desligada (-Dkahoot.leaderboard.file=none)");
+            return;
+        }
+        String[] parts = command.split(" ");
+        String window = parts.length > 1 ? parts[1] : "all";
+        List<GlobalLeaderboard.Standing> standings = null;
+        try {
+            int n = parts.length > 2 ? Integer.parseInt(parts[2]) : 10;
+            if (n > 0 && parts.length <= 3) {
+                standings = leaderboard.top(window, n);
+            }
+        } catch (NumberFormatException e) {
+            // Uso inválido
+        }
+        if (standings == null) {
+            System.out.println("Uso: top [all|1h|24h|7d] [n]");
+            return;
+        }
+        if (standings.isEmpty()) {
+            System.out.println("Nenhum jogo terminado (" + window + ")");
+            return;
+        }
+        System.out.println("🏆 Classificação global (" + window + ", " + leaderboard.size(window) + " jogadores):");
+        for (GlobalLeaderboard.Standing s : standings) {
+            System.out.println(String.format("%3d. %-15s %5d pontos (%d jogos, %d vitórias)",
+                    s.rank(), s.username(), s.points(), s.games(), s.wins()));
+        }
+    }
+
+    private void handleShardStats() {
+        System.out.println("Registo de jogos: " + games.size() + " jogos");
+        for (String line : games.shardStats()) {
+            System.out.println(" - " + line);
+        }
+    }
+
+    private void evictFinishedGames() {
+        int removed = games.evictFinished(FINISHED_GAME_GRACE_MS);
+        if (removed > 0) {
+            Log.info("🧹 {} jogo(s) terminado(s) removido(s)", removed);
+        }
+        if (running) {
+            timers.schedule(this::evictFinishedGames, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    private void maintainLeaderboard() {
+        leaderboard.maintain();
+        if (running) {
+            timers.schedule(this::maintainLeaderboard, LEADERBOARD_MAINTENANCE_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private void sampleMetrics() {
+        metrics.sampleRates();
+        if (running) {
+            timers.schedule(this::sampleMetrics, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    private void handleMetrics() {
+        System.out.println("Métricas (também em JMX: kahoot:type=Metrics):");
+        for (String line : metrics.dump()) {
+            System.out.println(" - " + line);
+        }
+    }
+
+    // log [nível] [amostragem]: sem argumentos mostra a configuração atual
+    private void handleLogLevel(String command) {
+        String[] parts = command.split(" ");
+        try {
+            if (parts.length > 1) {
+                Log.setLevel(Log.parseLevel(parts[1]));
+            }
+            if (parts.length > 2) {
+                Log.setDebugSample(Integer.parseInt(parts[2]));
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + ". Uso: log [debug|info|warn|error] [1 em N mensagens de debug]");
+            return;
+        }
+        System.out.println("Log: nível " + Log.getLevel().name().toLowerCase() + ", debug amostrado 1 em "
+                + Log.getDebugSample() + ", " + Log.getDropped() + " mensagens descartadas");
+    }
+
+    private void handleTimerStats() {
+        System.out.println("Temporizador: roda de " + timers.getWheelSize() + " posições x " + timers.getTickMillis() + " ms");
+        System.out.println("Agendados: " + timers.getScheduledCount() + " | Disparados: " + timers.getFiredCount()
+                + " | Cancelados: " + timers.getCancelledCount() + " | Pendentes: " + timers.getPendingCount());
+        System.out.println("Atraso no disparo: médio " + timers.getMeanJitterMicros() + " µs, p50 <= "
+                + timers.jitterPercentileMicros(50) + " µs, p99 <= " + timers.jitterPercentileMicros(99)
+                + " µs, máx. " + timers.getMaxJitterMicros() + " µs");
+    }
+
+    private void handleQueueStats() {
+        System.out.println("Filas de saída: capacidade " + config.getOutboundCapacity()
+                + ", política " + config.getOverflowPolicy().name().toLowerCase());
+        games.forEach(game -> {
+            int total = 0;
+            int deepest = 0;
+            int connections = 0;
+            for (ClientConnection client : game.getConnections()) {
+                int depth = client.getOutboundQueue().getDepth();
+                total += depth;
+                deepest = Math.max(deepest, depth);
+                connections++;
+            }
+            System.out.println(" - " + game.getGameId() + ": " + connections + " ligações, "
+                    + total + " frames em fila (máx. por ligação: " + deepest + ")");
+        });
+        System.out.println("Descartados: " + OutboundQueue.getTotalDropped()
+                + " | Coalescidos: " + OutboundQueue.getTotalCoalesced()
+                + " | Clientes lentos desligados: " + OutboundQueue.getTotalOverflows());
+    }
+
+    // Threads de plataforma vivas e memória residente - para comparar os modos platform/virtual
+    private void handleThreadStats() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.out.println("Modo de threads: " + config.getThreadMode().name().toLowerCase());
+        System.out.println("Threads de plataforma: " + threads.getThreadCount()
+                + " (pico: " + threads.getPeakThreadCount() + ")");
+        long rssKb = readResidentSetKb();
+        if (rssKb >= 0) {
+            System.out.println("RSS: " + (rssKb / 1024) + " MB");
+        }
+        Runtime runtime = Runtime.getRuntime();
+        System.out.println("Heap usada: " + ((runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024)) + " MB");
+    }
+
+    // VmRSS de /proc/self/status (apenas Linux); -1 se não estiver disponível
+    private static long readResidentSetKb() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Ignorar
+        }
+        return -1;
+    }
+
+    // Ligações aceites pelos transportes ficam sob vigilância do heartbeat até ao disconnect()
+    void track(ClientConnection connection) {
+        heartbeat.register(connection);
+    }
+
+    void untrack(ClientConnection connection) {
+        heartbeat.unregister(connection);
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    public OutboundQueue newOutboundQueue() {
+        return new OutboundQueue(config.getOutboundCapacity(), config.getOverflowPolicy());
+    }
+
+    // A thread do temporizador só entrega a tarefa ao taskPool: um fim de ronda grande não atrasa outros prazos
+    public TimerWheel.Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return timers.schedule(() -> execute(task), delay, unit);
+    }
+
+    // Corre a tarefa no pool de tarefas dos jogos (ignorada se o servidor já está a encerrar)
+    public void execute(Runnable task) {
+        try {
+            taskPool.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    Log.error("Erro numa tarefa do servidor", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Log.debug("Servidor a encerrar: tarefa descartada");
         }
     }
 
+    public TimerWheel getTimers() {
+        return timers;
+    }
+
+    // Thread (não iniciada) no modo configurado, para tarefas auxiliares dos jogos
+    public Thread newThread(Runnable task) {
+        return threadFactory.newThread(task);
+    }
+
     public GameState getGame(String gameId) {
-        return activeGames.get(gameId);
+        return games.get(gameId);
     }
 
     public void removeGame(String gameId) {
-        activeGames.remove(gameId);
+        games.remove(gameId);
+    }
+
+    // Resultado de um jogo terminado, para a classificação global (ignorado se estiver desligada)
+    void recordGame(String gameId, long finishedAt, List<GlobalLeaderboard.PlayerResult> players) {
+        if (leaderboard != null) {
+            leaderboard.record(gameId, finishedAt, players);
+        }
     }
 
-    private void shutdown() {
+    public void shutdown() {
         running = false;
-        try {
-            serverSocket.close();
-        } catch (IOException e) {
-            // Ignorar
+        if (nioTransport != null) {
+            nioTransport.shutdown();
+        } else {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                // Ignorar
+            }
         }
+        timers.shutdown();
         threadPool.shutdown();
-        System.out.println("Servidor encerrado");
+        taskPool.shutdown();
+        if (leaderboard != null) {
+            leaderboard.close();
+        }
+        Log.info("Servidor encerrado");
+        Log.flush();
     }
 
     public static void main(String[] args) {
         try {
-            GameServer server = new GameServer(8080);
+            GameServer server = new GameServer(ServerConfig.fromSystemProperties());
             server.start();
-        } catch (IOException e) {
+        } catch (IOException | IllegalArgumentException e) {
             System.out.println("Erro ao iniciar servidor: " + e.getMessage());
         }
     }
@@ -3,190 +3,307 @@ package kahoot.server;
 import kahoot.game.*;
 import kahoot.messages.*;
 import kahoot.coordination.*;
+import kahoot.log.Log;
+import kahoot.metrics.Counter;
+import kahoot.metrics.LatencyHistogram;
+import kahoot.metrics.MetricsRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class GameState {
+    private static final int QUESTION_TIME_SECONDS = 30;
+    // Pontuações completas a cada N perguntas (e na primeira); nas outras só as equipas que mudaram
+    private static final int SCORE_SNAPSHOT_EVERY = Math.max(1, Integer.getInteger("kahoot.score.snapshot", 5));
+    // Com mais equipas do que isto, os jogadores só recebem o top-K e a sua equipa
+    private static final int SCORE_TOP_K = Math.max(1, Integer.getInteger("kahoot.score.top", 10));
+    private static final SecureRandom TOKENS = new SecureRandom();
+    private static final Counter RESUMED = MetricsRegistry.global().counter("sessions.resumed");
+    private static final Counter ANSWERS = MetricsRegistry.global().counter("answers.accepted");
+    private static final Counter REJECTED_ANSWERS = MetricsRegistry.global().counter("answers.rejected");
+    private static final Counter ROUNDS = MetricsRegistry.global().counter("rounds.ended");
+    private static final LatencyHistogram ANSWER_TIME = MetricsRegistry.global().histogram("answer.process");
+    // Espera desde a primeira resposta até o contador (pergunta individual) ou a barreira (por equipa) abrir
+    private static final LatencyHistogram LATCH_WAIT = MetricsRegistry.global().histogram("latch.wait");
+    private static final LatencyHistogram BARRIER_WAIT = MetricsRegistry.global().histogram("barrier.wait");
+
     private final Game game;
-    private final Map<String, DealWithClient> connectedClients;
-    private final Map<Integer, ModifiedCountdownLatch> individualLatches;
+    private final Map<String, ClientConnection> connectedClients;
+    private final Map<String, String> sessionTokens; // username -> token para retomar a sessão
     private final Map<String, TeamBarrier> teamBarriers;
-    private final Map<Integer, Map<String, Integer>> questionAnswers; // questionIndex -> playerKey -> resposta
-    private final Map<Integer, Set<String>> answeredPlayers; // questionIndex -> conjunto de jogadores que responderam
     private final GameServer server; // Referência ao servidor para limpeza
-    private final Map<Integer, Thread> awaitThreads; // questionIndex -> thread que chama await()
-
-    private Question currentQuestion;
-    private Timer questionTimer;
-    private boolean gameInProgress;
-    private final Map<Integer, Boolean> questionEnded; // questionIndex -> already ended flag
+    private final AnswerSheet[] answerSheets; // duas folhas alternadas entre rondas (criadas no início do jogo)
+    private final Leaderboard teamBoard = new Leaderboard(); // marcadas a cada pontuação
+    private final Leaderboard playerBoard = new Leaderboard();
+
+    private volatile Round currentRound;
+    private volatile boolean gameInProgress;
+    private volatile long finishedAt; // instante do fim do jogo (0 enquanto não terminou)
+    private final Map<String, Integer> sentScores; // última pontuação enviada por equipa (só quem termina a ronda)
+    private volatile int lastScoredQuestion = -1;
+    private volatile GameEndMessage endMessage;
+
+    /**
+     * Estado de uma pergunta. Respostas atrasadas da ronda anterior são rejeitadas
+     * pelo índice da pergunta e nunca tocam na folha de respostas da ronda atual.
+     * O fim da ronda é decidido por CAS em "ended": o prazo e a última resposta
+     * competem e só um deles termina a pergunta. O contador e as barreiras só esperam
+     * pelos jogadores ligados no início da ronda; quem se desliga sem responder é
+     * descontado, para que a ronda não fique à espera do prazo.
+     */
+    private static final class Round {
+        final int questionIndex;
+        final Question question;
+        final boolean teamQuestion;
+        final int totalTeams; // equipas com jogadores ligados no início da ronda
+        final long startNanos;
+        final ModifiedCountdownLatch latch; // só em perguntas individuais
+        final AnswerSheet sheet; // slot do jogador -> resposta
+        final AtomicBoolean ended = new AtomicBoolean(false);
+        final AtomicInteger scoredTeams = new AtomicInteger(); // equipas já pontuadas
+        final Map<String, Integer> barrierGenerations = new HashMap<>(); // equipa -> geração da barreira nesta ronda
+        final AtomicLong firstAnswerNanos = new AtomicLong(); // 0 até à primeira resposta
+        final Map<String, Long> firstTeamAnswerNanos = new ConcurrentHashMap<>(); // equipa -> primeira chegada
+        volatile TimerWheel.Timeout deadline; // fim do tempo da pergunta no temporizador partilhado
+
+        Round(int questionIndex, Question question, boolean teamQuestion, int expectedPlayers, int totalTeams,
+              AnswerSheet sheet) {
+            this.questionIndex = questionIndex;
+            this.sheet = sheet;
+            this.question = question;
+            this.teamQuestion = teamQuestion;
+            this.totalTeams = totalTeams;
+            this.startNanos = System.nanoTime();
+            this.latch = teamQuestion ? null : new ModifiedCountdownLatch(2, 2, expectedPlayers);
+        }
+    }
 
     public GameState(String gameId, int numTeams, int playersPerTeam, int numQuestions, GameServer server) {
-        this.game = new Game(gameId, numTeams, playersPerTeam, numQuestions);
+        this(gameId, numTeams, playersPerTeam, numQuestions, null, server);
+    }
+
+    public GameState(String gameId, int numTeams, int playersPerTeam, int numQuestions, String quizName,
+                     GameServer server) {
+        this.game = new Game(gameId, numTeams, playersPerTeam, numQuestions, quizName);
         this.server = server;
         this.connectedClients = new ConcurrentHashMap<>();
-        this.individualLatches = new ConcurrentHashMap<>();
+        this.sessionTokens = new ConcurrentHashMap<>();
+        this.sentScores = new HashMap<>();
         this.teamBarriers = new ConcurrentHashMap<>();
-        this.questionAnswers = new ConcurrentHashMap<>();
-        this.answeredPlayers = new ConcurrentHashMap<>();
-        this.questionEnded = new ConcurrentHashMap<>();
-        this.awaitThreads = new ConcurrentHashMap<>();
+        this.answerSheets = new AnswerSheet[2];
         this.gameInProgress = false;
 
-        // Inicializar barreiras para cada equipa
-        for (String teamId : game.getTeams().keySet()) {
-            teamBarriers.put(teamId, new TeamBarrier(playersPerTeam, 30000)); // 30 segundos
+        // Inicializar barreiras e classificação para cada equipa
+        for (Team team : game.getTeams().values()) {
+            // Modo assíncrono: nenhuma thread espera pelos colegas de equipa; a pontuação no fim
+            // dos 30 segundos corre no pool de tarefas do servidor, fora da thread do temporizador
+            teamBarriers.put(team.getTeamId(),
+                    new TeamBarrier(playersPerTeam, 30000, server.getTimers(), server::execute));
+            teamBoard.track(team.getTeamId(), team::getTeamScore);
         }
     }
 
-    public synchronized boolean addPlayer(String teamId, String username, DealWithClient client) {
-        if (gameInProgress || game.isGameEnded()) {
-            return false;
+    // Devolve o token de sessão do novo jogador, ou null se a inscrição foi recusada
+    public synchronized String addPlayer(String teamId, String username, ClientConnection client) {
+        if (gameInProgress || game.isGameEnded() || teamId == null || username == null) {
+            return null;
         }
 
-        boolean success = game.addPlayer(teamId, username);
-        if (success) {
-            connectedClients.put(username, client);
-            System.out.println("Jogador " + username + " juntou-se à equipa " + teamId);
+        // O Game só muda no fim: daqui para a frente nada pode falhar e deixar um jogador sem ligação
+        String token = newToken();
+        if (!game.addPlayer(teamId, username)) {
+            return null;
+        }
+        sessionTokens.put(username, token);
+        connectedClients.put(username, client);
+        playerBoard.track(username, game.getPlayer(username)::getScore);
+        Log.info("Jogador {} juntou-se à equipa {}", username, teamId);
+
+        // Verificar se podemos iniciar o jogo
+        if (game.canStartGame() && !gameInProgress) {
+            startGame();
+        }
+        return token;
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[16];
+        TOKENS.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
 
-            // Verificar se podemos iniciar o jogo
-            if (game.canStartGame() && !gameInProgress) {
-                startGame();
+    // Método para notificar desconexão de jogador
+    public synchronized void removePlayer(String username, ClientConnection client) {
+        // Só remover se for a ligação registada (um username duplicado recusado não remove o original)
+        if (!connectedClients.remove(username, client)) {
+            return;
+        }
+        Log.info("Jogador {} desconectou-se", username);
+
+        // O jogador continua no Game e pode retomar a sessão; na ronda atual deixa de ser esperado
+        Player player = game.getPlayer(username);
+        Round round = currentRound;
+        if (player != null && round != null && !round.ended.get() && round.sheet.markCounted(player.getSlot())) {
+            if (round.teamQuestion) {
+                String teamId = player.getTeamId();
+                teamBarriers.get(teamId).leave(round.barrierGenerations.get(teamId));
+            } else {
+                round.latch.leave();
             }
         }
-        return success;
     }
 
-    // Método para notificar desconexão de jogador
-    public synchronized void removePlayer(String username) {
-        connectedClients.remove(username);
-        System.out.println("Jogador " + username + " desconectou-se");
-        // Nota: Não removemos do Game para manter consistência, mas podemos ajustar contagens se necessário
+    /**
+     * Associa uma nova ligação a um jogador já inscrito, se o token for o da sua sessão.
+     * Uma ligação anterior ainda registada (meio-aberta) é fechada. O jogador recebe as
+     * últimas pontuações e a pergunta em curso (com o tempo que resta), ou o resultado
+     * final se o jogo já terminou.
+     */
+    public synchronized boolean resumePlayer(String username, String token, ClientConnection client) {
+        Player player = username != null ? game.getPlayer(username) : null;
+        String expected = username != null ? sessionTokens.get(username) : null;
+        if (player == null || expected == null || token == null
+                || !MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                        token.getBytes(StandardCharsets.UTF_8))) {
+            return false;
+        }
+
+        ClientConnection previous = connectedClients.put(username, client);
+        RESUMED.increment();
+        Log.info("Jogador {} retomou a sessão na equipa {}", username, player.getTeamId());
+        client.sendMessage(new ErrorMessage(game.getGameId(), player.getTeamId(), username,
+                "SUCCESS: Sessão retomada na equipa " + player.getTeamId()));
+
+        GameEndMessage end = endMessage;
+        if (end != null) {
+            client.sendMessage(end);
+        } else {
+            // Placar completo: o cliente pode ter perdido deltas enquanto estava desligado
+            int scoredQuestion = lastScoredQuestion;
+            if (scoredQuestion >= 0) {
+                client.sendMessage(new ScoreMessage(game.getGameId(), "", username, scoreView(player.getTeamId()), 0,
+                        scoredQuestion, teamBoard.rank(player.getTeamId()), playerBoard.rank(username)));
+            }
+            Round round = currentRound;
+            if (round != null && !round.ended.get()) {
+                long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - round.startNanos);
+                int remaining = (int) Math.max(1, QUESTION_TIME_SECONDS - elapsed);
+                client.sendMessage(new QuestionMessage(game.getGameId(), "", "", round.question, remaining,
+                        round.questionIndex, round.teamQuestion));
+            }
+        }
+
+        // A ligação antiga já não está registada, por isso o seu disconnect não desconta o jogador
+        if (previous != null && previous != client) {
+            previous.disconnect();
+        }
+        return true;
     }
 
     private void startGame() {
         gameInProgress = true;
         game.setGameStarted(true);
-        System.out.println("Jogo " + game.getGameId() + " iniciado!");
+        Log.info("Jogo {} iniciado!", game.getGameId());
+
+        // As inscrições fecharam: o número de slots já não muda
+        answerSheets[0] = new AnswerSheet(game.getTotalPlayers());
+        answerSheets[1] = new AnswerSheet(game.getTotalPlayers());
 
         // Enviar primeira pergunta
         sendNextQuestion();
     }
 
-    private void sendNextQuestion() {
-        currentQuestion = game.getQuiz().getNextQuestion();
-        if (currentQuestion == null) {
+    // Chamado apenas pela thread que iniciou o jogo ou que ganhou o CAS do fim da ronda anterior;
+    // o lock impede que um jogador se desligue entre a contagem dos ligados e a publicação da ronda
+    private synchronized void sendNextQuestion() {
+        Question question = game.getQuiz().getNextQuestion();
+        if (question == null) {
             endGame();
             return;
         }
 
         int questionIndex = game.getCurrentQuestionIndex();
         boolean isTeamQuestion = (questionIndex % 2 == 1); // Índice 0,2,4... = individual; 1,3,5... = equipa
+        // Reutilizar a folha de há duas rondas (a da ronda anterior pode ainda ter leitores atrasados)
+        AnswerSheet sheet = answerSheets[questionIndex % 2];
+        sheet.clear();
+
+        // Jogadores desligados não contam nesta ronda (ficam já descontados na folha)
+        Map<String, Integer> connectedPerTeam = new HashMap<>();
+        int expectedPlayers = 0;
+        int expectedTeams = 0;
+        for (Team team : game.getTeams().values()) {
+            int connected = 0;
+            for (Player player : team.getPlayers()) {
+                if (connectedClients.containsKey(player.getUsername())) {
+                    connected++;
+                } else {
+                    sheet.markCounted(player.getSlot());
+                }
+            }
+            connectedPerTeam.put(team.getTeamId(), connected);
+            expectedPlayers += connected;
+            if (connected > 0) {
+                expectedTeams++;
+            }
+        }
+        Round round = new Round(questionIndex, question, isTeamQuestion, expectedPlayers, expectedTeams, sheet);
 
-        // Configurar estruturas de coordenação
+        // Configurar estruturas de coordenação (sem ninguém ligado a ronda só termina no prazo)
         if (isTeamQuestion) {
-            // Pergunta de equipa - reset das barreiras
-            for (TeamBarrier barrier : teamBarriers.values()) {
-                barrier.reset();
+            // Pergunta de equipa - reset das barreiras; a última chegada (ou o timeout) pontua a equipa
+            for (Map.Entry<String, TeamBarrier> entry : teamBarriers.entrySet()) {
+                String teamId = entry.getKey();
+                int parties = connectedPerTeam.get(teamId);
+                int generation = entry.getValue().reset(parties > 0 ? () -> scoreTeam(teamId, round) : null, parties);
+                round.barrierGenerations.put(teamId, generation);
             }
-        } else {
-            // Pergunta individual - criar ou resetar latch
-            int totalPlayers = game.getTeams().values().stream()
-                    .mapToInt(Team::getPlayerCount)
-                    .sum();
-            ModifiedCountdownLatch latch = individualLatches.get(questionIndex);
-            if (latch != null) {
-                latch.reset(totalPlayers);
-            } else {
-                individualLatches.put(questionIndex, new ModifiedCountdownLatch(2, 2, totalPlayers));
-            }
-            
-            // Criar thread que chama await() para esperar até todos responderem
-            startAwaitThread(questionIndex);
+        } else if (expectedPlayers > 0) {
+            // Termina na thread da última resposta, depois de pontuada - sem thread bloqueada em await()
+            round.latch.onComplete(() -> finishRound(round));
         }
 
-        // Inicializar estruturas para respostas
-        questionAnswers.put(questionIndex, new ConcurrentHashMap<>());
-        answeredPlayers.put(questionIndex, ConcurrentHashMap.newKeySet());
-        questionEnded.put(questionIndex, false);
+        // Iniciar temporizador antes de aceitar respostas, para que o fim da ronda o possa cancelar
+        startQuestionTimer(round);
 
-        // Enviar pergunta a todos os jogadores
-        broadcastQuestion(currentQuestion, questionIndex, isTeamQuestion);
+        // A ronda fica visível antes de a pergunta sair, para aceitar as primeiras respostas
+        currentRound = round;
 
-        // Iniciar temporizador
-        startQuestionTimer(questionIndex);
+        // Enviar pergunta a todos os jogadores
+        broadcastQuestion(question, questionIndex, isTeamQuestion);
     }
 
     private void broadcastQuestion(Question question, int questionIndex, boolean isTeamQuestion) {
         QuestionMessage msg = new QuestionMessage(
-                game.getGameId(), "", "", question, 30, questionIndex, isTeamQuestion
+                game.getGameId(), "", "", question, QUESTION_TIME_SECONDS, questionIndex, isTeamQuestion
         );
 
-        for (DealWithClient client : connectedClients.values()) {
-            client.sendMessage(msg);
-        }
-    }
-
-    private void startAwaitThread(int questionIndex) {
-        // Cancelar thread anterior se existir
-        Thread previousThread = awaitThreads.get(questionIndex);
-        if (previousThread != null && previousThread.isAlive()) {
-            previousThread.interrupt();
-        }
-        
-        ModifiedCountdownLatch latch = individualLatches.get(questionIndex);
-        Thread awaitThread = new Thread(() -> {
-            try {
-                // Thread bloqueia aqui até o contador chegar a zero
-                latch.await();
-                
-                // Quando o contador chegar a zero (todos responderam), terminar a pergunta
-                synchronized (GameState.this) {
-                    Boolean ended = questionEnded.get(questionIndex);
-                    if (ended != null && !ended) {
-                        questionEnded.put(questionIndex, true);
-                        endQuestion(questionIndex);
-                    }
-                }
-            } catch (InterruptedException e) {
-                // Thread foi interrompida (timeout ou nova pergunta)
-                Thread.currentThread().interrupt();
-            }
-        });
-        
-        awaitThread.start();
-        awaitThreads.put(questionIndex, awaitThread);
-    }
-
-    private void startQuestionTimer(int questionIndex) {
-        // Cancelar timer anterior se existir
-        if (questionTimer != null) {
-            questionTimer.cancel();
-        }
-        
-        questionTimer = new Timer();
-        questionTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                synchronized (GameState.this) {
-                    Boolean ended = questionEnded.get(questionIndex);
-                    if (ended != null && !ended) {
-                        questionEnded.put(questionIndex, true);
-                        // Interromper thread await se ainda estiver esperando
-                        Thread awaitThread = awaitThreads.get(questionIndex);
-                        if (awaitThread != null && awaitThread.isAlive()) {
-                            awaitThread.interrupt();
-                        }
-                        endQuestion(questionIndex);
-                    }
-                }
-            }
-        }, 30000); // 30 segundos
+        Broadcast.send(msg, connectedClients.values());
+    }
+
+    private void startQuestionTimer(Round round) {
+        round.deadline = server.schedule(() -> expireRound(round), QUESTION_TIME_SECONDS, TimeUnit.SECONDS);
     }
 
     public void processAnswer(AnswerMessage answerMsg) {
+        long start = System.nanoTime();
+        if (acceptAnswer(answerMsg, start)) {
+            ANSWERS.increment();
+        } else {
+            REJECTED_ANSWERS.increment();
+        }
+        ANSWER_TIME.record(System.nanoTime() - start);
+    }
+
+    // Devolve false se a resposta foi ignorada (tardia, duplicada, jogador desconhecido)
+    private boolean acceptAnswer(AnswerMessage answerMsg, long now) {
         if (!gameInProgress || game.isGameEnded()) {
-            return;
+            return false;
         }
 
         int questionIndex = answerMsg.getQuestionIndex();
@@ -194,287 +311,336 @@ public class GameState {
         String teamId = answerMsg.getTeamId();
         int answer = answerMsg.getAnswer();
 
-        // Verificar se a pergunta já terminou (sincronização apenas para leitura)
-        Boolean ended;
-        synchronized (this) {
-            ended = questionEnded.get(questionIndex);
-            if (ended == null || ended) {
-                return; // Pergunta já terminou, ignorar resposta tardia
-            }
+        // Resposta tardia (ronda anterior) ou pergunta já terminada - ignorar
+        Round round = currentRound;
+        if (round == null || round.questionIndex != questionIndex || round.ended.get()) {
+            return false;
         }
 
-        // Verificar se o jogador já respondeu (prevenir duplicados)
-        Set<String> answered = answeredPlayers.get(questionIndex);
-        if (answered == null) {
-            return; // Pergunta não existe mais
-        }
-        
-        String playerKey = teamId + "_" + username;
-        synchronized (this) {
-            // Verificar novamente após adquirir lock
-            ended = questionEnded.get(questionIndex);
-            if (ended == null || ended) {
-                return;
-            }
-            
-            if (!answered.add(playerKey)) {
-                // Jogador já respondeu, ignorar resposta duplicada
-                return;
-            }
+        // Jogador desconhecido ou equipa que não é a sua - ignorar
+        Player player = game.getPlayer(username);
+        if (player == null || !player.getTeamId().equals(teamId)) {
+            return false;
         }
 
-        Question question = getCurrentQuestion();
-
-        // VALIDAR SE A PERGUNTA EXISTE
-        if (question == null) {
-            System.err.println(" ERRO: Pergunta é null para o índice: " + questionIndex);
-            return;
+        // Verificar se o jogador já respondeu (prevenir duplicados) - bit atómico por slot
+        int slot = player.getSlot();
+        if (!round.sheet.markAnswered(slot)) {
+            return false;
         }
 
-        boolean isTeamQuestion = (questionIndex % 2 == 1);
-        
-        // Armazenar resposta - sempre por playerKey para consistência
-        questionAnswers.get(questionIndex).put(playerKey, answer);
-        boolean isCorrect = question.isCorrect(answer);
+        round.sheet.setAnswer(slot, answer);
+        boolean isCorrect = round.question.isCorrect(answer);
 
-        if (isTeamQuestion) {
-            // IMPORTANTE: processTeamAnswer() bloqueia em await() - chamar FORA do synchronized
-            processTeamAnswer(teamId, username, question, isCorrect, questionIndex);
-            // Para perguntas de equipa, a verificação de allAnswersReceived() 
-            // é feita dentro de processTeamAnswer() após await() retornar
-        } else {
-            processIndividualAnswer(teamId, username, question, isCorrect, questionIndex);
-            
-            // Para perguntas individuais, verificar se todas as respostas foram recebidas
-            synchronized (this) {
-                if (allAnswersReceived(questionIndex)) {
-                    // Verificar novamente dentro do synchronized para garantir execução única
-                    Boolean stillEnded = questionEnded.get(questionIndex);
-                    if (stillEnded != null && !stillEnded) {
-                        questionEnded.put(questionIndex, true);
-                        endQuestion(questionIndex);
-                    }
-                }
+        // Falso para quem retomou a sessão depois de ter sido descontado nesta ronda
+        boolean counted = round.sheet.markCounted(slot);
+
+        if (round.teamQuestion) {
+            // Não bloqueia: a última chegada da equipa corre scoreTeam; uma resposta não contada
+            // ainda entra na pontuação se a equipa não tiver sido pontuada
+            if (counted) {
+                round.firstTeamAnswerNanos.putIfAbsent(teamId, now);
+                processTeamAnswer(teamId, round);
             }
+        } else if (counted) {
+            round.firstAnswerNanos.compareAndSet(0, now);
+            processIndividualAnswer(player, isCorrect, round);
+        } else if (isCorrect) {
+            // Fora do contador: pontos sem bónus
+            updateScores(player, round.question.getPoints());
+            round.sheet.setPoints(slot, round.question.getPoints());
         }
+        return true;
     }
 
-    private void processIndividualAnswer(String teamId, String username, Question question,
-                                         boolean isCorrect, int questionIndex) {
-        ModifiedCountdownLatch latch = individualLatches.get(questionIndex);
-        
-        // TODOS os jogadores chamam countDown() para decrementar o contador
-        int bonus = latch.countDown();
-        
-        // Apenas os que acertam recebem pontos (com bónus se aplicável)
-        if (isCorrect) {
-            int points = question.getPoints() * bonus;
-            
-            // Atualizar pontuação do jogador e da equipa
-            updateScores(teamId, username, points);
-            
-            System.out.println(username + " (" + teamId + ") ganhou " + points + " pontos (bónus: " + bonus + ")");
-        } else {
-            System.out.println(username + " (" + teamId + ") respondeu incorretamente");
-        }
-    }
+    private void processIndividualAnswer(Player player, boolean isCorrect, Round round) {
+        String teamId = player.getTeamId();
+        String username = player.getUsername();
 
-    private void processTeamAnswer(String teamId, String username, Question question,
-                                   boolean isCorrect, int questionIndex) {
-        try {
-            TeamBarrier barrier = teamBarriers.get(teamId);
-            int position = barrier.await();
+        // TODOS os jogadores chamam countDown() para decrementar o contador; a pontuação corre
+        // dentro do countDown para que o fim da ronda (onComplete) já a veja
+        round.latch.countDown(bonus -> {
+            // Apenas os que acertam recebem pontos (com bónus se aplicável)
+            if (isCorrect) {
+                int points = round.question.getPoints() * bonus;
 
-            // Se position == -1, a barreira foi resetada (nova pergunta começou)
-            if (position == -1) {
-                // Thread da pergunta anterior - simplesmente sair
-                return;
-            }
+                // Atualizar pontuação do jogador e da equipa
+                updateScores(player, points);
+                round.sheet.setPoints(player.getSlot(), points);
 
-            // Verificar se a pergunta já terminou antes de processar
-            synchronized (this) {
-                Boolean ended = questionEnded.get(questionIndex);
-                if (ended != null && ended) {
-                    // Pergunta já terminou - não processar
-                    return;
+                if (Log.isDebugEnabled()) {
+                    Log.debug("{} ({}) ganhou {} pontos (bónus: {})", username, teamId, points, bonus);
                 }
+            } else if (Log.isDebugEnabled()) {
+                Log.debug("{} ({}) respondeu incorretamente", username, teamId);
             }
+        });
+    }
 
-            // Calcular pontuação da equipa FORA do synchronized para evitar bloqueios
-            // Apenas o primeiro jogador da equipa calcula
-            if (position == 1) {
-                calculateTeamScore(teamId, question, questionIndex);
-            }
+    private void processTeamAnswer(String teamId, Round round) {
+        TeamBarrier barrier = teamBarriers.get(teamId);
+        barrier.arrive(round.barrierGenerations.get(teamId));
+    }
 
-            // Verificar se todas as respostas foram recebidas APÓS sair da barreira
-            // Isso permite terminar a pergunta imediatamente quando a última equipa completa
-            synchronized (this) {
-                // Verificar novamente se a pergunta já terminou
-                Boolean ended = questionEnded.get(questionIndex);
-                if (ended != null && ended) {
-                    return; // Já terminou (outra thread terminou primeiro)
-                }
+    // Ação da barreira: corre uma vez por equipa, na thread da última chegada ou do timeout
+    private void scoreTeam(String teamId, Round round) {
+        if (round.ended.get()) {
+            return;
+        }
+        Long firstAnswer = round.firstTeamAnswerNanos.get(teamId);
+        if (firstAnswer != null) {
+            BARRIER_WAIT.record(System.nanoTime() - firstAnswer);
+        }
+        calculateTeamScore(teamId, round);
 
-                // IMPORTANTE: Verificar dentro do synchronized para garantir consistência
-                if (allAnswersReceived(questionIndex)) {
-                    questionEnded.put(questionIndex, true);
-                    // Chamar endQuestion() fora do synchronized para evitar deadlock
-                } else {
-                    return; // Ainda faltam respostas
-                }
-            }
-            
-            // Chamar endQuestion() fora do synchronized para evitar problemas
-            // (já garantimos que apenas uma thread chega aqui)
-            endQuestion(questionIndex);
-            
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        // A última equipa pontuada termina a pergunta
+        if (round.scoredTeams.incrementAndGet() >= round.totalTeams) {
+            finishRound(round);
         }
     }
 
-    private void calculateTeamScore(String teamId, Question question, int questionIndex) {
-        Map<String, Integer> teamAnswers = questionAnswers.get(questionIndex);
-        Team team = game.getTeams().get(teamId);
+    private void calculateTeamScore(String teamId, Round round) {
+        Team team = game.getTeam(teamId);
+        Question question = round.question;
 
         boolean allCorrect = true;
         int correctCount = 0;
 
         // ✅ VERIFICAR CADA JOGADOR DA EQUIPA INDIVIDUALMENTE
+        boolean debug = Log.isDebugEnabled();
         for (Player player : team.getPlayers()) {
-            String playerKey = teamId + "_" + player.getUsername();
-            Integer answer = teamAnswers.get(playerKey);
+            int answer = round.sheet.getAnswer(player.getSlot());
 
-            if (answer == null) {
+            if (answer == AnswerSheet.NO_ANSWER) {
                 allCorrect = false;
-                System.out.println("O" + player.getUsername() + " não respondeu");
+                if (debug) {
+                    Log.debug("O {} não respondeu", player.getUsername());
+                }
             } else if (!question.isCorrect(answer)) {
                 allCorrect = false;
-                System.out.println("O" + player.getUsername() + " respondeu errado: " + answer);
+                if (debug) {
+                    Log.debug("O {} respondeu errado: {}", player.getUsername(), answer);
+                }
             } else {
                 correctCount++;
-                System.out.println("O" + player.getUsername() + " respondeu corretamente");
+                if (debug) {
+                    Log.debug("O {} respondeu corretamente", player.getUsername());
+                }
             }
         }
 
         int points;
         if (allCorrect) {
             points = question.getPoints() * 2; // Dobro da pontuação
-            System.out.println("🎯 Equipa " + teamId + " ganhou " + points + " pontos (TODOS acertaram)");
+            Log.info("🎯 Equipa {} ganhou {} pontos (TODOS acertaram)", teamId, points);
         } else if (correctCount > 0) {
             points = question.getPoints(); // Pontuação normal
-            System.out.println("🎯 Equipa " + teamId + " ganhou " + points + " pontos (" + correctCount + "/" + team.getPlayers().size() + " acertaram)");
+            Log.info("🎯 Equipa {} ganhou {} pontos ({}/{} acertaram)", teamId, points, correctCount,
+                    team.getPlayers().size());
         } else {
             points = 0;
-            System.out.println("💥 Equipa " + teamId + " não ganhou pontos (ninguém acertou)");
+            Log.info("💥 Equipa {} não ganhou pontos (ninguém acertou)", teamId);
         }
 
         team.addTeamScore(points);
+        teamBoard.changed(teamId);
+        for (Player player : team.getPlayers()) {
+            round.sheet.setPoints(player.getSlot(), points);
+        }
     }
 
-    private void updateScores(String teamId, String username, int points) {
-        Team team = game.getTeams().get(teamId);
-        for (Player player : team.getPlayers()) {
-            if (player.getUsername().equals(username)) {
-                player.addScore(points);
-                break;
+    // O(1): jogador já resolvido pelo índice; contadores atómicos e classificações só marcadas, sem locks
+    private void updateScores(Player player, int points) {
+        player.addScore(points);
+        game.getTeam(player.getTeamId()).addTeamScore(points);
+        playerBoard.changed(player.getUsername());
+        teamBoard.changed(player.getTeamId());
+    }
+
+    // Fim do tempo (no pool de tarefas do servidor): equipas incompletas são pontuadas com as respostas que deram
+    private void expireRound(Round round) {
+        if (round.teamQuestion && !round.ended.get()) {
+            for (Map.Entry<String, TeamBarrier> entry : teamBarriers.entrySet()) {
+                entry.getValue().breakBarrier(round.barrierGenerations.get(entry.getKey()));
             }
         }
-        team.addTeamScore(points);
+        finishRound(round);
     }
 
-    private boolean allAnswersReceived(int questionIndex) {
-        int totalPlayers = game.getTeams().values().stream()
-                .mapToInt(Team::getPlayerCount)
-                .sum();
-        Set<String> answered = answeredPlayers.get(questionIndex);
-        if (answered == null) {
-            return false;
+    // O mesmo que o fim do prazo da pergunta indicada, sem esperar pelo temporizador (testes de concorrência)
+    void expireQuestion(int questionIndex) {
+        Round round = currentRound;
+        if (round != null && round.questionIndex == questionIndex) {
+            expireRound(round);
         }
-        return answered.size() >= totalPlayers;
     }
 
-    private void endQuestion(int questionIndex) {
-        // Cancelar timer se ainda estiver ativo
-        if (questionTimer != null) {
-            questionTimer.cancel();
-            questionTimer = null;
-        }
-        
-        // Interromper thread await se ainda estiver esperando
-        Thread awaitThread = awaitThreads.get(questionIndex);
-        if (awaitThread != null && awaitThread.isAlive()) {
-            awaitThread.interrupt();
+    // Só a thread que ganha o CAS termina a ronda (prazo ou última resposta)
+    private void finishRound(Round round) {
+        if (round.ended.compareAndSet(false, true)) {
+            ROUNDS.increment();
+            long firstAnswer = round.firstAnswerNanos.get();
+            if (!round.teamQuestion && firstAnswer != 0) {
+                LATCH_WAIT.record(System.nanoTime() - firstAnswer);
+            }
+            endQuestion(round);
         }
+    }
 
-        // Marcar pergunta como terminada
-        questionEnded.put(questionIndex, true);
+    private void endQuestion(Round round) {
+        // Cancelar o prazo se ainda estiver ativo
+        round.deadline.cancel();
 
         // Enviar pontuações atualizadas
-        broadcastScores(questionIndex);
+        broadcastScores(round);
 
         // Preparar próxima pergunta
-        synchronized (this) {
-            if (!game.isGameEnded()) {
-                game.incrementQuestion();
-                sendNextQuestion();
+        if (!game.isGameEnded()) {
+            game.incrementQuestion();
+            sendNextQuestion();
+        }
+    }
+
+    /**
+     * Fim da pergunta: cada jogador recebe os pontos que ganhou na ronda, a posição da sua
+     * equipa e a sua, e as equipas cuja pontuação mudou (ScoreDeltaMessage) ou o placar
+     * completo (ScoreMessage) a cada SCORE_SNAPSHOT_EVERY perguntas. Em jogos com mais de
+     * SCORE_TOP_K equipas segue sempre um ScoreMessage só com o top-K e a equipa do
+     * destinatário. Jogadores com os mesmos pontos, equipa e posição partilham o frame.
+     */
+    private void broadcastScores(Round round) {
+        int questionIndex = round.questionIndex;
+        boolean large = game.getTeams().size() > SCORE_TOP_K;
+        boolean snapshot = large || questionIndex % SCORE_SNAPSHOT_EVERY == 0;
+        Map<String, Integer> scores = large ? topScores() : changedScores(snapshot);
+        lastScoredQuestion = questionIndex;
+
+        // A posição de um jogador só depende da pontuação: uma consulta por pontuação distinta
+        Map<Integer, Integer> rankByScore = new HashMap<>();
+        for (Team team : game.getTeams().values()) {
+            // Pontos na ronda (32 bits altos) e posição do jogador -> destinatários da equipa
+            Map<Long, List<ClientConnection>> groups = new HashMap<>();
+            for (Player player : team.getPlayers()) {
+                ClientConnection client = connectedClients.get(player.getUsername());
+                if (client != null) {
+                    int points = round.sheet.getPoints(player.getSlot());
+                    int rank = rankByScore.computeIfAbsent(player.getScore(), playerBoard::rankOf);
+                    groups.computeIfAbsent((long) points << 32 | rank, k -> new ArrayList<>()).add(client);
+                }
+            }
+            if (groups.isEmpty()) {
+                continue;
+            }
+            int teamRank = teamBoard.rank(team.getTeamId());
+            Map<String, Integer> teamScores = large ? withTeam(scores, team.getTeamId()) : scores;
+            for (Map.Entry<Long, List<ClientConnection>> group : groups.entrySet()) {
+                int points = (int) (group.getKey() >>> 32);
+                int playerRank = (int) group.getKey().longValue();
+                Message msg = snapshot
+                        ? new ScoreMessage(game.getGameId(), "", "", teamScores, points, questionIndex,
+                                teamRank, playerRank)
+                        : new ScoreDeltaMessage(game.getGameId(), "", "", teamScores, points, questionIndex,
+                                teamRank, playerRank);
+                Broadcast.send(msg, group.getValue());
             }
         }
     }
 
-    private void broadcastScores(int questionIndex) {
-        Map<String, Integer> teamScores = new HashMap<>();
+    // Equipas cuja pontuação mudou desde o último envio (todas, se snapshot)
+    private Map<String, Integer> changedScores(boolean snapshot) {
+        Map<String, Integer> scores = new HashMap<>();
         for (Team team : game.getTeams().values()) {
-            teamScores.put(team.getTeamId(), team.getTeamScore());
+            int score = team.getTeamScore();
+            Integer previous = sentScores.put(team.getTeamId(), score);
+            if (snapshot || previous == null || previous != score) {
+                scores.put(team.getTeamId(), score);
+            }
         }
+        return scores;
+    }
+
+    private Map<String, Integer> topScores() {
+        Map<String, Integer> scores = new LinkedHashMap<>();
+        for (Leaderboard.Entry entry : teamBoard.top(SCORE_TOP_K)) {
+            scores.put(entry.id(), entry.score());
+        }
+        return scores;
+    }
 
-        for (DealWithClient client : connectedClients.values()) {
-            // Calcular pontos da ronda atual (simplificado)
-            int currentRoundPoints = 0; // TODO: Implementar cálculo específico
+    // O top-K mais a equipa do destinatário, se ficou de fora
+    private Map<String, Integer> withTeam(Map<String, Integer> scores, String teamId) {
+        Team team = game.getTeam(teamId);
+        if (team == null || scores.containsKey(teamId)) {
+            return scores;
+        }
+        Map<String, Integer> view = new LinkedHashMap<>(scores);
+        view.put(teamId, team.getTeamScore());
+        return view;
+    }
 
-            ScoreMessage scoreMsg = new ScoreMessage(
-                    game.getGameId(), "", "", teamScores, currentRoundPoints, questionIndex
-            );
-            client.sendMessage(scoreMsg);
+    // Placar que um jogador da equipa indicada vê (ao retomar a sessão)
+    private Map<String, Integer> scoreView(String teamId) {
+        if (game.getTeams().size() > SCORE_TOP_K) {
+            return withTeam(topScores(), teamId);
+        }
+        Map<String, Integer> scores = new HashMap<>();
+        for (Team team : game.getTeams().values()) {
+            scores.put(team.getTeamId(), team.getTeamScore());
         }
+        return scores;
     }
 
     private void endGame() {
         gameInProgress = false;
         game.setGameEnded(true);
+        finishedAt = System.currentTimeMillis();
 
-        // Calcular equipa vencedora
-        String winningTeam = "";
-        int maxScore = -1;
-        Map<String, Integer> finalScores = new HashMap<>();
+        // Vencedora e pontuações finais lidas da classificação (só o top-K em jogos grandes)
+        List<Leaderboard.Entry> top = teamBoard.top(1);
+        String winningTeam = top.isEmpty() ? "" : top.get(0).id();
+        Map<String, Integer> finalScores = scoreView("");
 
+        // Enviar resultados finais
+        GameEndMessage endMsg = new GameEndMessage(
+                game.getGameId(), "", "", finalScores, winningTeam
+        );
+        endMessage = endMsg;
+        Broadcast.send(endMsg, connectedClients.values());
+
+        // Os resultados dos jogadores passam para a classificação global antes de o jogo ser removido
+        List<GlobalLeaderboard.PlayerResult> results = new ArrayList<>(game.getTotalPlayers());
         for (Team team : game.getTeams().values()) {
-            finalScores.put(team.getTeamId(), team.getTeamScore());
-            if (team.getTeamScore() > maxScore) {
-                maxScore = team.getTeamScore();
-                winningTeam = team.getTeamId();
+            for (Player player : team.getPlayers()) {
+                results.add(new GlobalLeaderboard.PlayerResult(player.getUsername(), team.getTeamId(),
+                        player.getScore(), team.getTeamId().equals(winningTeam)));
             }
         }
+        server.recordGame(game.getGameId(), finishedAt, results);
 
-        // Enviar resultados finais
-        for (DealWithClient client : connectedClients.values()) {
-            GameEndMessage endMsg = new GameEndMessage(
-                    game.getGameId(), "", "", finalScores, winningTeam
-            );
-            client.sendMessage(endMsg);
-        }
-
-        System.out.println("Jogo " + game.getGameId() + " terminado! Vencedor: " + winningTeam);
+        Log.info("Jogo {} terminado! Vencedor: {}", game.getGameId(), winningTeam);
     }
 
-    private Question getCurrentQuestion() {
-        if (currentQuestion == null) {
-            System.err.println(" CurrentQuestion é null");
-        }
-        return currentQuestion;
+    public Collection<ClientConnection> getConnections() {
+        return connectedClients.values();
     }
 
     public int getPlayerCount() {
         return connectedClients.size();
     }
-}
\ No newline at end of file
+
+    Set<String> getTeamIds() {
+        return game.getTeams().keySet();
+    }
+
+    public String getGameId() {
+        return game.getGameId();
+    }
+
+    public boolean isFinished() {
+        return finishedAt != 0;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+}
@@ -0,0 +1,436 @@
+package kahoot.server;
+
+import kahoot.game.Leaderboard;
+import kahoot.log.Log;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Classificação global dos jogadores, acumulada de todos os jogos terminados: desde
+ * sempre e nas últimas 1h, 24h e 7d. Cada jogo terminado é acrescentado a um ficheiro
+ * só de acrescento, numa thread própria (sem I/O nas threads dos jogos). Os índices em
+ * memória (um Leaderboard por janela) respondem ao top-N sem percorrer os resultados.
+ * Periodicamente o ficheiro é compactado: os resultados fora da maior janela ficam
+ * reduzidos a um total por jogador.
+ *
+ * Ficheiro: [int magic] seguido de registos [int tamanho][conteúdo][int CRC32 do conteúdo]
+ *   resultado  [byte 1][long fim do jogo (ms)][jogo][int n]{[jogador][equipa][int pontos][boolean venceu]}
+ *   total      [byte 2][jogador][int pontos][int jogos][int vitórias]
+ * Um registo incompleto ou corrompido no fim (ex.: queda a meio de uma escrita), ou
+ * com um tipo desconhecido, é descartado ao carregar juntamente com o que vem a seguir.
+ */
+class GlobalLeaderboard {
+    static final int MAGIC = 0x4B4C4231; // "KLB1"
+    private static final byte RESULT = 1;
+    private static final byte TOTAL = 2;
+    private static final int MAX_RECORD = 16 << 20;
+    // Compactar no máximo a cada N minutos, e só se houve jogos novos desde a última vez
+    private static final long COMPACT_INTERVAL_MS =
+            TimeUnit.MINUTES.toMillis(Math.max(1, Long.getLong("kahoot.leaderboard.compact", 10)));
+    private static final long FOREVER = Long.MAX_VALUE;
+
+    record PlayerResult(String username, String teamId, int score, boolean won) {}
+
+    record Standing(int rank, String username, int points, int games, int wins) {}
+
+    private record GameResult(long seq, long finishedAt, String gameId, List<PlayerResult> players) {}
+
+    private static final class Stats {
+        int points;
+        int games;
+        int wins;
+    }
+
+    // Totais de uma janela e a sua classificação; as janelas finitas guardam os resultados para os expirar
+    private static final class Index {
+        final String name;
+        final long spanMs;
+        final ArrayDeque<GameResult> results = new ArrayDeque<>();
+        final Map<String, Stats> stats = new HashMap<>();
+        final Leaderboard board = new Leaderboard();
+
+        Index(String name, long spanMs) {
+            this.name = name;
+            this.spanMs = spanMs;
+        }
+
+        void add(GameResult result) {
+            for (PlayerResult player : result.players()) {
+                add(player.username(), player.score(), 1, player.won() ? 1 : 0);
+            }
+            if (spanMs != FOREVER) {
+                results.addLast(result);
+            }
+        }
+
+        void add(String username, int points, int games, int wins) {
+            Stats stats = this.stats.get(username);
+            if (stats == null) {
+                Stats created = new Stats();
+                this.stats.put(username, created);
+                board.track(username, () -> created.points);
+                stats = created;
+            }
+            stats.points += points;
+            stats.games += games;
+            stats.wins += wins;
+            board.changed(username);
+        }
+
+        // Retira os resultados que já saíram da janela
+        void expire(long now) {
+            while (!results.isEmpty() && results.peekFirst().finishedAt() <= now - spanMs) {
+                for (PlayerResult player : results.pollFirst().players()) {
+                    Stats stats = this.stats.get(player.username());
+                    stats.points -= player.score();
+                    stats.games--;
+                    stats.wins -= player.won() ? 1 : 0;
+                    if (stats.games == 0) {
+                        this.stats.remove(player.username());
+                        board.remove(player.username());
+                    } else {
+                        board.changed(player.username());
+                    }
+                }
+            }
+        }
+    }
+
+    private final Path file;
+    private final Index allTime = new Index("all", FOREVER);
+    private final Index[] windows = {
+            new Index("1h", TimeUnit.HOURS.toMillis(1)),
+            new Index("24h", TimeUnit.DAYS.toMillis(1)),
+            new Index("7d", TimeUnit.DAYS.toMillis(7)) // a maior: os seus resultados sobrevivem à compactação
+    };
+    private final ExecutorService writer;
+    private long nextSeq; // protegido pelo lock do objeto
+
+    // Só na thread de escrita
+    private FileChannel channel;
+    private long compactedSeq; // resultados com seq inferior já estão no ficheiro compactado
+    private int appended; // resultados acrescentados desde a última compactação
+    private long lastCompaction = System.currentTimeMillis();
+
+    GlobalLeaderboard(Path file) throws IOException {
+        this.file = file;
+        load();
+        this.channel = openForAppend();
+        this.writer = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("kahoot-leaderboard").daemon(true).factory());
+    }
+
+    // Chamado no fim de cada jogo; a escrita no ficheiro fica para a thread de escrita
+    void record(String gameId, long finishedAt, List<PlayerResult> players) {
+        GameResult result;
+        synchronized (this) {
+            result = new GameResult(nextSeq++, finishedAt, gameId, List.copyOf(players));
+            apply(result, System.currentTimeMillis());
+        }
+        try {
+            writer.execute(() -> append(result));
+        } catch (RejectedExecutionException e) {
+            Log.warn("Servidor a encerrar: resultado do jogo {} não gravado", gameId);
+        }
+    }
+
+    // Top-n de uma janela ("all", "1h", "24h" ou "7d"); null se a janela não existe
+    synchronized List<Standing> top(String window, int n) {
+        Index index = index(window);
+        if (index == null) {
+            return null;
+        }
+        expire(System.currentTimeMillis());
+        List<Standing> standings = new ArrayList<>();
+        for (Leaderboard.Entry entry : index.board.top(n)) {
+            Stats stats = index.stats.get(entry.id());
+            standings.add(new Standing(index.board.rankOf(entry.score()), entry.id(), entry.score(),
+                    stats.games, stats.wins));
+        }
+        return standings;
+    }
+
+    // Jogadores com resultados na janela
+    synchronized int size(String window) {
+        Index index = index(window);
+        return index == null ? 0 : index.stats.size();
+    }
+
+    // Tarefa periódica do temporizador: expira as janelas e compacta o ficheiro, fora da thread do temporizador
+    void maintain() {
+        writer.execute(() -> {
+            long now = System.currentTimeMillis();
+            synchronized (this) {
+                expire(now);
+            }
+            if (appended > 0 && now - lastCompaction >= COMPACT_INTERVAL_MS) {
+                compact();
+            }
+        });
+    }
+
+    // Compacta já, na thread de escrita, e espera que termine (testes)
+    void compactNow() throws InterruptedException, ExecutionException {
+        writer.submit(this::compact).get();
+    }
+
+    // Espera pelas escritas pendentes e fecha o ficheiro
+    void close() {
+        writer.execute(() -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Ignorar
+            }
+        });
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Index index(String window) {
+        if (allTime.name.equals(window)) {
+            return allTime;
+        }
+        for (Index index : windows) {
+            if (index.name.equals(window)) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    private void apply(GameResult result, long now) {
+        allTime.add(result);
+        for (Index window : windows) {
+            if (result.finishedAt() > now - window.spanMs) {
+                window.add(result);
+            }
+        }
+    }
+
+    private void expire(long now) {
+        for (Index window : windows) {
+            window.expire(now);
+        }
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        int records = 0;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            DataInputStream data = new DataInputStream(new BufferedInputStream(Channels.newInputStream(in), 1 << 16));
+            if (in.size() < 4 || data.readInt() != MAGIC) {
+                throw new IOException(file + " não é um ficheiro de classificação global");
+            }
+            long valid = 4; // fim do último registo completo
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = data.readInt();
+                    if (length < 1 || length > MAX_RECORD) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    data.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if (data.readInt() != (int) crc.getValue()) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                try {
+                    readRecord(payload, now);
+                } catch (IOException e) {
+                    // CRC certo mas conteúdo que não sabemos ler: tratar como o fim corrompido
+                    Log.warn("Classificação global: registo inválido em {} ({})", file, e.getMessage());
+                    break;
+                }
+                valid += 4 + payload.length + 4;
+                records++;
+            }
+            if (valid < in.size()) {
+                Log.warn("Classificação global: {} bytes incompletos ou corrompidos no fim de {} descartados",
+                        in.size() - valid, file);
+                in.truncate(valid);
+            }
+        }
+        Log.info("🏆 Classificação global carregada: {} jogadores, {} registos ({} ms)", allTime.stats.size(),
+                records, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Lê o registo todo antes de o aplicar: um registo inválido não deixa nada a meio
+    private void readRecord(byte[] payload, long now) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        if (type == RESULT) {
+            long finishedAt = in.readLong();
+            String gameId = in.readUTF();
+            int n = in.readInt();
+            List<PlayerResult> players = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                players.add(new PlayerResult(in.readUTF(), in.readUTF(), in.readInt(), in.readBoolean()));
+            }
+            apply(new GameResult(nextSeq++, finishedAt, gameId, players), now);
+        } else if (type == TOTAL) {
+            allTime.add(in.readUTF(), in.readInt(), in.readInt(), in.readInt());
+        } else {
+            throw new IOException("Tipo de registo desconhecido na classificação global: " + type);
+        }
+    }
+
+    private FileChannel openForAppend() throws IOException {
+        FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        if (out.size() == 0) {
+            out.write(ByteBuffer.allocate(4).putInt(0, MAGIC));
+        }
+        return out;
+    }
+
+    private void append(GameResult result) {
+        if (result.seq() < compactedSeq) {
+            return; // já entrou na última compactação
+        }
+        try {
+            channel.write(frame(encodeResult(result)));
+            channel.force(false);
+            appended++;
+        } catch (IOException e) {
+            Log.error("Erro ao gravar a classificação global: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reescreve o ficheiro com um total por jogador (sem os resultados da maior janela)
+     * e os resultados ainda dentro dela, num ficheiro temporário que substitui o atual.
+     */
+    private void compact() {
+        long start = System.nanoTime();
+        Map<String, int[]> totals = new HashMap<>();
+        List<GameResult> recent;
+        long upTo;
+        synchronized (this) {
+            upTo = nextSeq;
+            allTime.stats.forEach((name, s) -> totals.put(name, new int[] {s.points, s.games, s.wins}));
+            recent = new ArrayList<>(windows[windows.length - 1].results);
+        }
+        for (GameResult result : recent) {
+            for (PlayerResult player : result.players()) {
+                int[] total = totals.get(player.username());
+                total[0] -= player.score();
+                total[1]--;
+                total[2] -= player.won() ? 1 : 0;
+            }
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                out.write(ByteBuffer.allocate(4).putInt(0, MAGIC));
+                for (Map.Entry<String, int[]> entry : totals.entrySet()) {
+                    int[] total = entry.getValue();
+                    if (total[1] > 0) {
+                        out.write(frame(encodeTotal(entry.getKey(), total[0], total[1], total[2])));
+                    }
+                }
+                for (GameResult result : recent) {
+                    out.write(frame(encodeResult(result)));
+                }
+                out.force(true);
+            }
+            channel.close();
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            channel = openForAppend();
+            compactedSeq = upTo;
+            appended = 0;
+            lastCompaction = System.currentTimeMillis();
+            Log.info("🗜️ Classificação global compactada: {} KB ({} ms)", channel.size() / 1024,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            Log.error("Erro ao compactar a classificação global: {}", e.getMessage());
+            try {
+                if (!channel.isOpen()) {
+                    channel = openForAppend();
+                }
+            } catch (IOException reopen) {
+                Log.error("Classificação global sem ficheiro: {}", reopen.getMessage());
+            }
+        }
+    }
+
+    private static byte[] encodeResult(GameResult result) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + result.players().size() * 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RESULT);
+        out.writeLong(result.finishedAt());
+        out.writeUTF(result.gameId());
+        out.writeInt(result.players().size());
+        for (PlayerResult player : result.players()) {
+            out.writeUTF(player.username());
+            out.writeUTF(player.teamId());
+            out.writeInt(player.score());
+            out.writeBoolean(player.won());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeTotal(String username, int points, int games, int wins) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(TOTAL);
+        out.writeUTF(username);
+        out.writeInt(points);
+        out.writeInt(games);
+        out.writeInt(wins);
+        return bytes.toByteArray();
+    }
+
+    // [int tamanho][conteúdo][int CRC32]
+    private static ByteBuffer frame(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + payload.length + 4);
+        buffer.putInt(payload.length).put(payload).putInt((int) crc.getValue());
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,99 @@
+package kahoot.server;
+
+import kahoot.log.Log;
+import kahoot.messages.PingMessage;
+import kahoot.metrics.Counter;
+import kahoot.metrics.LatencyHistogram;
+import kahoot.metrics.MetricsRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heartbeat central de todas as ligações, numa tarefa periódica do temporizador partilhado
+ * (nenhuma thread por ligação). A cada intervalo envia um PingMessage às ligações sem
+ * tráfego recebido há pelo menos meio intervalo; qualquer mensagem recebida conta como
+ * sinal de vida. Ligações sem tráfego há mais do que o timeout são fechadas: disconnect()
+ * tira o jogador do GameState, fecha o socket (a thread de leitura termina) e liberta a
+ * fila de saída.
+ */
+class HeartbeatMonitor {
+    static final Counter PINGS = MetricsRegistry.global().counter("heartbeat.pings");
+    static final Counter REAPED = MetricsRegistry.global().counter("connections.reaped");
+    static final LatencyHistogram RTT = MetricsRegistry.global().histogram("heartbeat.rtt");
+
+    private final GameServer server;
+    private final long intervalNanos;
+    private final long timeoutNanos;
+    private final Set<ClientConnection> connections = ConcurrentHashMap.newKeySet();
+
+    HeartbeatMonitor(GameServer server, long intervalMs, long timeoutMs) {
+        this.server = server;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    boolean isEnabled() {
+        return intervalNanos > 0;
+    }
+
+    void start() {
+        if (isEnabled()) {
+            server.schedule(this::sweep, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void register(ClientConnection connection) {
+        if (isEnabled()) {
+            connections.add(connection);
+        }
+    }
+
+    void unregister(ClientConnection connection) {
+        connections.remove(connection);
+    }
+
+    int size() {
+        return connections.size();
+    }
+
+    // Agendado no temporizador, corre no pool de tarefas do servidor: enfileira pings e fecha ligações
+    private void sweep() {
+        long now = System.nanoTime();
+        OutboundFrame ping = null;
+        List<ClientConnection> idle = new ArrayList<>();
+        for (ClientConnection connection : connections) {
+            long silent = now - connection.getLastSeenNanos();
+            if (silent > timeoutNanos) {
+                idle.add(connection);
+            } else if (silent >= intervalNanos / 2) {
+                if (ping == null) {
+                    ping = encodePing(now);
+                }
+                PINGS.increment();
+                connection.sendFrame(ping); // frame partilhado, como nas difusões
+            }
+        }
+        for (ClientConnection connection : idle) {
+            REAPED.increment();
+            Log.info("💤 Ligação sem resposta ao heartbeat fechada: {} ({} ms sem tráfego)",
+                    connection.getUsername() != null ? connection.getUsername() : "Unknown",
+                    TimeUnit.NANOSECONDS.toMillis(now - connection.getLastSeenNanos()));
+            connection.disconnect();
+        }
+        if (server.isRunning()) {
+            server.schedule(this::sweep, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static OutboundFrame encodePing(long now) {
+        try {
+            return OutboundFrame.of(new PingMessage(null, null, null, now));
+        } catch (IOException e) {
+            throw new IllegalStateException("Erro ao codificar ping", e); // mensagem fixa: não acontece
+        }
+    }
+}
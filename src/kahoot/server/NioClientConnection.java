@@ -0,0 +1,194 @@
+package kahoot.server;
+
+import kahoot.messages.*;
+import kahoot.log.Log;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ligação de um cliente servida por um event loop do NioTransport.
+ * Leituras e escritas no canal acontecem apenas na thread do loop; as mensagens
+ * recebidas são processadas por ordem, uma de cada vez, no handlerPool.
+ */
+class NioClientConnection extends ClientConnection {
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private final SocketChannel channel;
+    private final NioTransport.EventLoop loop;
+    private final ExecutorService handlerPool;
+    private final Queue<Message> inbox;
+    private final AtomicBoolean dispatching;
+    private ByteBuffer readBuffer;
+    private OutboundFrame writingFrame; // frame a meio da escrita (só na thread do loop)
+    private ByteBuffer writingBuffer;
+    private SelectionKey key;
+
+    NioClientConnection(SocketChannel channel, NioTransport.EventLoop loop, GameServer server,
+                        ExecutorService handlerPool) {
+        super(server);
+        this.channel = channel;
+        this.loop = loop;
+        this.handlerPool = handlerPool;
+        this.inbox = new ConcurrentLinkedQueue<>();
+        this.dispatching = new AtomicBoolean(false);
+        this.readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    }
+
+    // Chamado na thread do loop
+    void register(Selector selector) throws IOException {
+        key = channel.register(selector, SelectionKey.OP_READ, this);
+    }
+
+    // Chamado na thread do loop
+    void onReadable() {
+        try {
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                Log.info("Cliente desconectado: {}", username != null ? username : "Unknown");
+                onTransportError();
+                return;
+            }
+            parseFrames();
+        } catch (IOException e) {
+            Log.info("Cliente desconectado: {}", username != null ? username : "Unknown");
+            onTransportError();
+        }
+    }
+
+    private void parseFrames() throws IOException {
+        readBuffer.flip();
+        while (readBuffer.remaining() >= WireFormat.HEADER_SIZE) {
+            int length = readBuffer.getInt(readBuffer.position());
+            WireFormat.checkLength(length);
+            if (readBuffer.remaining() < WireFormat.HEADER_SIZE + length) {
+                if (readBuffer.capacity() < WireFormat.HEADER_SIZE + length) {
+                    // Frame maior que o buffer - crescer para o tamanho do frame
+                    ByteBuffer bigger = ByteBuffer.allocate(WireFormat.HEADER_SIZE + length);
+                    bigger.put(readBuffer);
+                    readBuffer = bigger;
+                    return;
+                }
+                break;
+            }
+            readBuffer.position(readBuffer.position() + WireFormat.HEADER_SIZE);
+            Message msg = WireFormat.decode(readBuffer.array(), readBuffer.arrayOffset() + readBuffer.position(), length);
+            readBuffer.position(readBuffer.position() + length);
+            enqueue(msg);
+        }
+        readBuffer.compact();
+    }
+
+    private void enqueue(Message msg) {
+        inbox.add(msg);
+        if (dispatching.compareAndSet(false, true)) {
+            handlerPool.execute(this::drainInbox);
+        }
+    }
+
+    // Processa as mensagens recebidas por ordem, fora da thread do loop
+    private void drainInbox() {
+        boolean released = false;
+        try {
+            while (true) {
+                Message msg;
+                while ((msg = inbox.poll()) != null) {
+                    dispatch(msg);
+                }
+                dispatching.set(false);
+                // Outra mensagem pode ter chegado entre o poll e o set
+                if (inbox.isEmpty() || !dispatching.compareAndSet(false, true)) {
+                    released = true;
+                    return;
+                }
+            }
+        } finally {
+            if (!released) {
+                dispatching.set(false); // um Error não pode deixar a ligação sem ninguém a ler a inbox
+            }
+        }
+    }
+
+    // Uma mensagem que rebenta o handler desliga só esta ligação; o resto da inbox é descartado
+    private void dispatch(Message msg) {
+        if (!isConnected()) {
+            return;
+        }
+        try {
+            handleMessage(msg);
+        } catch (RuntimeException e) {
+            Log.error("Erro ao processar mensagem de {}, a desligar", username, e);
+            disconnect();
+        }
+    }
+
+    @Override
+    protected void onFrameQueued() {
+        loop.requestWrite(this);
+    }
+
+    // Chamado na thread do loop
+    void onWritable() {
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        try {
+            while (writingFrame != null || startNextFrame()) {
+                if (writingFrame == OutboundFrame.CLOSE) {
+                    writingFrame = null;
+                    onTransportError();
+                    return;
+                }
+                channel.write(writingBuffer);
+                if (writingBuffer.hasRemaining()) {
+                    // Buffer do socket cheio - continuar quando o canal voltar a aceitar escrita
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                writingFrame.done();
+                writingFrame = null;
+                writingBuffer = null;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            Log.warn("Erro ao enviar mensagem para {}", username);
+            onTransportError();
+        }
+    }
+
+    private boolean startNextFrame() {
+        writingFrame = outbound.poll();
+        if (writingFrame == null) {
+            return false;
+        }
+        writingBuffer = writingFrame.buffer();
+        return true;
+    }
+
+    // Chamado na thread do loop: larga o canal e desliga o jogador fora do loop
+    void onTransportError() {
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            handlerPool.execute(this::disconnect);
+        } catch (RejectedExecutionException e) {
+            closeTransport(); // servidor a encerrar
+        }
+    }
+
+    @Override
+    protected void closeTransport() {
+        outbound.clear();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Ignorar
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package kahoot.server;
+
+import kahoot.log.Log;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Transporte não bloqueante: uma thread aceita ligações e um pequeno número de
+ * event loops (um Selector cada) lê frames dos canais e escreve as respostas.
+ * O processamento das mensagens no GameState corre no handlerPool, para que
+ * um fim de ronda (pontuações e próxima pergunta para todos) não atrase o I/O.
+ * Nenhum handler bloqueia, por isso o pool é fixo (uma thread por núcleo).
+ */
+public class NioTransport {
+    private final GameServer server;
+    private final ServerSocketChannel serverChannel;
+    private final EventLoop[] loops;
+    private final ExecutorService handlerPool;
+    private volatile boolean running;
+    private int nextLoop;
+
+    public NioTransport(GameServer server, int port, int numLoops, ExecutorService handlerPool) throws IOException {
+        this.server = server;
+        this.handlerPool = handlerPool;
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(port));
+        this.loops = new EventLoop[numLoops];
+        for (int i = 0; i < numLoops; i++) {
+            loops[i] = new EventLoop(Selector.open());
+        }
+    }
+
+    public void start() {
+        running = true;
+        for (int i = 0; i < loops.length; i++) {
+            new Thread(loops[i], "nio-loop-" + i).start();
+        }
+        new Thread(this::acceptConnections, "nio-accept").start();
+    }
+
+    private void acceptConnections() {
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                GameServer.ACCEPTED.increment();
+                Log.info("Nova conexão: {}", channel.socket().getInetAddress());
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+
+                // Distribuir ligações pelos event loops em round-robin
+                EventLoop loop = loops[nextLoop];
+                nextLoop = (nextLoop + 1) % loops.length;
+                NioClientConnection connection = new NioClientConnection(channel, loop, server, handlerPool);
+                server.track(connection);
+                loop.register(connection);
+            } catch (IOException e) {
+                if (running) {
+                    Log.warn("Erro ao aceitar conexão: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    public int getLocalPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public void shutdown() {
+        running = false;
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            // Ignorar
+        }
+        for (EventLoop loop : loops) {
+            loop.shutdown();
+        }
+    }
+
+    /**
+     * Event loop de um Selector. Registos e pedidos de escrita vindos de outras
+     * threads entram por filas e são aplicados na thread do loop.
+     */
+    static class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<NioClientConnection> pendingRegistrations;
+        private final Queue<NioClientConnection> pendingWrites;
+        private volatile boolean running;
+
+        EventLoop(Selector selector) {
+            this.selector = selector;
+            this.pendingRegistrations = new ConcurrentLinkedQueue<>();
+            this.pendingWrites = new ConcurrentLinkedQueue<>();
+            this.running = true;
+        }
+
+        void register(NioClientConnection connection) {
+            pendingRegistrations.add(connection);
+            selector.wakeup();
+        }
+
+        void requestWrite(NioClientConnection connection) {
+            pendingWrites.add(connection);
+            selector.wakeup();
+        }
+
+        void shutdown() {
+            running = false;
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select();
+                    processRegistrations();
+                    processWrites();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        NioClientConnection connection = (NioClientConnection) key.attachment();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        try {
+                            if (key.isReadable()) {
+                                connection.onReadable();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.onWritable();
+                            }
+                        } catch (RuntimeException e) {
+                            failed(connection, e);
+                        }
+                    }
+                } catch (IOException e) {
+                    Log.error("Erro no event loop: {}", e.getMessage());
+                }
+            }
+            try {
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+                selector.close();
+            } catch (IOException e) {
+                // Ignorar
+            }
+        }
+
+        private void processRegistrations() {
+            NioClientConnection connection;
+            while ((connection = pendingRegistrations.poll()) != null) {
+                try {
+                    connection.register(selector);
+                } catch (IOException e) {
+                    connection.onTransportError();
+                }
+            }
+        }
+
+        private void processWrites() {
+            NioClientConnection connection;
+            while ((connection = pendingWrites.poll()) != null) {
+                try {
+                    connection.onWritable();
+                } catch (RuntimeException e) {
+                    failed(connection, e);
+                }
+            }
+        }
+
+        // Um erro inesperado numa ligação (ex.: frame malformado) fecha só essa ligação, não o loop
+        private void failed(NioClientConnection connection, RuntimeException e) {
+            Log.error("Erro na ligação de {}, a fechar", connection.getUsername(), e);
+            connection.onTransportError();
+        }
+    }
+}
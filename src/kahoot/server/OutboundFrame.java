@@ -0,0 +1,70 @@
+package kahoot.server;
+
+import kahoot.messages.Message;
+import kahoot.messages.QuestionMessage;
+import kahoot.messages.ScoreMessage;
+import kahoot.messages.WireFormat;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Mensagem já codificada (cabeçalho + payload), imutável e partilhável entre ligações.
+ * Num broadcast a mensagem é codificada uma única vez e o mesmo frame entra
+ * na fila de saída de cada cliente.
+ */
+public final class OutboundFrame {
+    // Marcador na fila de saída: fechar a ligação depois de escrever o que está antes dele
+    static final OutboundFrame CLOSE = new OutboundFrame(new byte[0], Message.class, null);
+
+    private final byte[] bytes;
+    private final Class<? extends Message> messageType;
+    private final Broadcast broadcast; // null para mensagens dirigidas a um só cliente
+
+    private OutboundFrame(byte[] bytes, Class<? extends Message> messageType, Broadcast broadcast) {
+        this.bytes = bytes;
+        this.messageType = messageType;
+        this.broadcast = broadcast;
+    }
+
+    public static OutboundFrame of(Message msg) throws IOException {
+        return of(msg, null);
+    }
+
+    static OutboundFrame of(Message msg, Broadcast broadcast) throws IOException {
+        byte[] payload = WireFormat.encode(msg);
+        byte[] bytes = new byte[WireFormat.HEADER_SIZE + payload.length];
+        ByteBuffer.wrap(bytes).putInt(payload.length).put(payload);
+        return new OutboundFrame(bytes, msg.getClass(), broadcast);
+    }
+
+    // Vista só de leitura com posição própria - cada ligação escreve ao seu ritmo
+    public ByteBuffer buffer() {
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes);
+    }
+
+    // A ligação terminou este frame (escrito ou descartado)
+    public void done() {
+        if (broadcast != null) {
+            broadcast.delivered();
+        }
+    }
+
+    // Uma pontuação completa ou pergunta mais recente torna esta obsoleta. Os deltas de
+    // pontuação (ScoreDeltaMessage) nunca são substituíveis: cada um traz equipas que o seguinte não traz
+    public boolean isSupersedable() {
+        return messageType == ScoreMessage.class || messageType == QuestionMessage.class;
+    }
+
+    public int size() {
+        return bytes.length;
+    }
+
+    public Class<? extends Message> getMessageType() {
+        return messageType;
+    }
+}
@@ -0,0 +1,196 @@
+package kahoot.server;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fila de saída limitada de uma ligação. Quem envia nunca bloqueia: quando a fila
+ * enche aplica-se a política configurada e, se mesmo assim não houver espaço,
+ * o offer falha e a ligação é desligada (cliente lento).
+ *
+ * Frames "substituíveis" (pontuações, perguntas) deixam de ter interesse quando
+ * chega um mais recente do mesmo tipo.
+ */
+public class OutboundQueue {
+    public enum OverflowPolicy {
+        DROP_SUPERSEDED, // fila cheia: descartar o frame substituível mais antigo que já tem sucessor
+        COALESCE,        // sempre: um frame substituível novo substitui o anterior do mesmo tipo
+        DISCONNECT       // fila cheia: desligar o cliente lento
+    }
+
+    // Totais de todas as ligações do servidor
+    private static final LongAdder totalDropped = new LongAdder();
+    private static final LongAdder totalCoalesced = new LongAdder();
+    private static final LongAdder totalOverflows = new LongAdder();
+
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final ArrayDeque<OutboundFrame> frames;
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private int maxDepth;
+    private long dropped;
+    private long coalesced;
+
+    public OutboundQueue(int capacity, OverflowPolicy policy) {
+        this.capacity = capacity;
+        this.policy = policy;
+        this.frames = new ArrayDeque<>();
+        this.lock = new ReentrantLock();
+        this.notEmpty = lock.newCondition();
+    }
+
+    // Devolve false se não houver espaço depois de aplicar a política (o frame não entra)
+    public boolean offer(OutboundFrame frame) {
+        OutboundFrame discarded = null;
+        lock.lock();
+        try {
+            // O marcador de fecho entra sempre
+            if (frame != OutboundFrame.CLOSE) {
+                if (policy == OverflowPolicy.COALESCE && frame.isSupersedable()) {
+                    discarded = removeLastOfType(frame);
+                    if (discarded != null) {
+                        coalesced++;
+                        totalCoalesced.increment();
+                    }
+                }
+                if (frames.size() >= capacity && policy == OverflowPolicy.DROP_SUPERSEDED) {
+                    discarded = removeOldestSuperseded(frame);
+                    if (discarded != null) {
+                        dropped++;
+                        totalDropped.increment();
+                    }
+                }
+                if (frames.size() >= capacity) {
+                    totalOverflows.increment();
+                    return false;
+                }
+            }
+            frames.addLast(frame);
+            maxDepth = Math.max(maxDepth, frames.size());
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+            if (discarded != null) {
+                discarded.done();
+            }
+        }
+    }
+
+    // Para a thread de escrita (transporte bloqueante)
+    public OutboundFrame take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (frames.isEmpty()) {
+                notEmpty.await();
+            }
+            return frames.pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Para o event loop (transporte NIO)
+    public OutboundFrame poll() {
+        lock.lock();
+        try {
+            return frames.pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Descarta o que estiver na fila (ligação fechada)
+    public void clear() {
+        OutboundFrame frame;
+        while ((frame = poll()) != null) {
+            frame.done();
+        }
+    }
+
+    private OutboundFrame removeLastOfType(OutboundFrame incoming) {
+        Iterator<OutboundFrame> it = frames.descendingIterator();
+        while (it.hasNext()) {
+            OutboundFrame queued = it.next();
+            if (queued.getMessageType() == incoming.getMessageType()) {
+                it.remove();
+                return queued;
+            }
+        }
+        return null;
+    }
+
+    // O mais antigo frame substituível para o qual já existe um mais recente do mesmo tipo
+    private OutboundFrame removeOldestSuperseded(OutboundFrame incoming) {
+        Set<Class<?>> newerTypes = new HashSet<>();
+        if (incoming.isSupersedable()) {
+            newerTypes.add(incoming.getMessageType());
+        }
+        OutboundFrame oldest = null;
+        Iterator<OutboundFrame> it = frames.descendingIterator();
+        while (it.hasNext()) {
+            OutboundFrame queued = it.next();
+            if (!queued.isSupersedable()) {
+                continue;
+            }
+            if (newerTypes.contains(queued.getMessageType())) {
+                oldest = queued;
+            } else {
+                newerTypes.add(queued.getMessageType());
+            }
+        }
+        if (oldest != null) {
+            frames.removeFirstOccurrence(oldest);
+        }
+        return oldest;
+    }
+
+    public int getDepth() {
+        lock.lock();
+        try {
+            return frames.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxDepth() {
+        lock.lock();
+        try {
+            return maxDepth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCoalesced() {
+        lock.lock();
+        try {
+            return coalesced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() { return capacity; }
+    public OverflowPolicy getPolicy() { return policy; }
+
+    public static long getTotalDropped() { return totalDropped.sum(); }
+    public static long getTotalCoalesced() { return totalCoalesced.sum(); }
+    public static long getTotalOverflows() { return totalOverflows.sum(); }
+}
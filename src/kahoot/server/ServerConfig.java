@@ -0,0 +1,95 @@
+package kahoot.server;
+
+/**
+ * Configuração do servidor escolhida no arranque através de propriedades do sistema.
+ * Exemplo: java -Dkahoot.transport=nio -Dkahoot.nio.loops=2 -Dkahoot.threads=virtual kahoot.server.GameServer
+ * Filas de saída: -Dkahoot.queue.capacity=64 -Dkahoot.queue.policy=drop_superseded|coalesce|disconnect
+ * Registo de jogos: -Dkahoot.registry.shards=16
+ * Heartbeat: -Dkahoot.heartbeat.interval=10000 -Dkahoot.heartbeat.timeout=30000 (ms; intervalo 0 desliga)
+ * Classificação global: -Dkahoot.leaderboard.file=leaderboard.dat ("none" desliga)
+ */
+public class ServerConfig {
+    public enum Transport { BLOCKING, NIO }
+    public enum ThreadMode { PLATFORM, VIRTUAL }
+
+    private final int port;
+    private final Transport transport;
+    private final int eventLoops;
+    private final ThreadMode threadMode;
+    private final int outboundCapacity;
+    private final OutboundQueue.OverflowPolicy overflowPolicy;
+    private final int registryShards;
+    private final long heartbeatIntervalMs;
+    private final long heartbeatTimeoutMs;
+    private final String leaderboardFile; // null: sem classificação global
+
+    public ServerConfig(int port, Transport transport, int eventLoops, ThreadMode threadMode,
+                        int outboundCapacity, OutboundQueue.OverflowPolicy overflowPolicy, int registryShards,
+                        long heartbeatIntervalMs, long heartbeatTimeoutMs, String leaderboardFile) {
+        if (eventLoops < 1) {
+            throw new IllegalArgumentException("Número de event loops deve ser positivo");
+        }
+        if (outboundCapacity < 1) {
+            throw new IllegalArgumentException("Capacidade da fila de saída deve ser positiva");
+        }
+        if (registryShards < 1) {
+            throw new IllegalArgumentException("Número de shards do registo deve ser positivo");
+        }
+        if (heartbeatIntervalMs < 0) {
+            throw new IllegalArgumentException("Intervalo do heartbeat não pode ser negativo");
+        }
+        if (heartbeatIntervalMs > 0 && heartbeatTimeoutMs <= heartbeatIntervalMs) {
+            throw new IllegalArgumentException("Timeout do heartbeat deve ser maior que o intervalo");
+        }
+        this.port = port;
+        this.transport = transport;
+        this.eventLoops = eventLoops;
+        this.threadMode = threadMode;
+        this.outboundCapacity = outboundCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.registryShards = registryShards;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.heartbeatTimeoutMs = heartbeatTimeoutMs;
+        this.leaderboardFile = leaderboardFile;
+    }
+
+    public static ServerConfig fromSystemProperties() {
+        int port = Integer.getInteger("kahoot.port", 8080);
+        Transport transport = parseEnum(Transport.class, "kahoot.transport", "blocking");
+        int defaultLoops = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int eventLoops = Integer.getInteger("kahoot.nio.loops", defaultLoops);
+        ThreadMode threadMode = parseEnum(ThreadMode.class, "kahoot.threads", "platform");
+        int outboundCapacity = Integer.getInteger("kahoot.queue.capacity", 64);
+        OutboundQueue.OverflowPolicy overflowPolicy =
+                parseEnum(OutboundQueue.OverflowPolicy.class, "kahoot.queue.policy", "drop_superseded");
+        int registryShards = Integer.getInteger("kahoot.registry.shards", 16);
+        long heartbeatIntervalMs = Long.getLong("kahoot.heartbeat.interval", 10_000);
+        long heartbeatTimeoutMs = Long.getLong("kahoot.heartbeat.timeout", 30_000);
+        String leaderboardFile = System.getProperty("kahoot.leaderboard.file", "leaderboard.dat").trim();
+        if (leaderboardFile.isEmpty() || leaderboardFile.equalsIgnoreCase("none")) {
+            leaderboardFile = null;
+        }
+        return new ServerConfig(port, transport, eventLoops, threadMode, outboundCapacity, overflowPolicy,
+                registryShards, heartbeatIntervalMs, heartbeatTimeoutMs, leaderboardFile);
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String property, String defaultValue) {
+        String value = System.getProperty(property, defaultValue);
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Valor inválido para " + property + ": " + value);
+        }
+    }
+
+    public int getPort() { return port; }
+    public Transport getTransport() { return transport; }
+    public int getEventLoops() { return eventLoops; }
+    public ThreadMode getThreadMode() { return threadMode; }
+    public int getOutboundCapacity() { return outboundCapacity; }
+    public OutboundQueue.OverflowPolicy getOverflowPolicy() { return overflowPolicy; }
+    public int getRegistryShards() { return registryShards; }
+    public long getHeartbeatIntervalMs() { return heartbeatIntervalMs; }
+    public long getHeartbeatTimeoutMs() { return heartbeatTimeoutMs; }
+    public String getLeaderboardFile() { return leaderboardFile; }
+}
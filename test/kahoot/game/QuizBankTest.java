@@ -0,0 +1,88 @@
+package kahoot.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Banco compilado: a resposta correta e o nº de opções sobrevivem à ida e volta em
+ * toda a gama de um byte sem sinal, valores fora dela são recusados ao compilar, e um
+ * jogo sem quiz indicado usa o primeiro quiz do banco (como com o quizzes.json).
+ */
+class QuizBankTest {
+    private static Path json(String quizzes) throws IOException {
+        Path file = Files.createTempFile("quizzes", ".json");
+        file.toFile().deleteOnExit();
+        Files.write(file, ("{\"quizzes\": [" + quizzes + "]}").getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String question(String text, int options, int correct) {
+        StringBuilder json = new StringBuilder("{\"question\": \"" + text + "\", \"points\": 5, \"correct\": "
+                + correct + ", \"options\": [");
+        for (int i = 0; i < options; i++) {
+            json.append(i > 0 ? ", " : "").append("\"o").append(i).append('"');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static Path compile(Path json) throws IOException {
+        Path bank = Files.createTempFile("quizzes", ".bank");
+        bank.toFile().deleteOnExit();
+        new QuizBankCompiler().compile(json, bank);
+        return bank;
+    }
+
+    @Test
+    void correctIndexAbove127SurvivesRoundTrip() throws Exception {
+        QuizBank bank = QuizBank.open(compile(json("{\"name\": \"Q\", \"questions\": ["
+                + question("Muitas", 255, 200) + "]}")));
+        Question question = bank.readQuestion(0);
+        assertEquals(255, question.getOptions().length);
+        assertEquals(200, question.getCorrect());
+        assertTrue(question.isCorrect(200));
+    }
+
+    @Test
+    void outOfRangeValuesAreRejected() throws Exception {
+        Path tooManyOptions = json("{\"name\": \"Q\", \"questions\": [" + question("Demais", 256, 0) + "]}");
+        assertThrows(IOException.class, () -> compile(tooManyOptions));
+
+        Path correctPastOptions = json("{\"name\": \"Q\", \"questions\": [" + question("Fora", 4, 4) + "]}");
+        assertThrows(IOException.class, () -> compile(correctPastOptions));
+
+        Path missingCorrect = json("{\"name\": \"Q\", \"questions\": [" + question("Sem", 4, -1) + "]}");
+        assertThrows(IOException.class, () -> compile(missingCorrect));
+    }
+
+    @Test
+    void gameWithoutQuizNameUsesFirstQuizOfBank() throws Exception {
+        StringBuilder first = new StringBuilder("{\"name\": \"Primeiro\", \"questions\": [");
+        StringBuilder second = new StringBuilder("{\"name\": \"Segundo\", \"questions\": [");
+        for (int i = 0; i < 20; i++) {
+            first.append(i > 0 ? "," : "").append(question("A" + i, 4, 1));
+            second.append(i > 0 ? "," : "").append(question("B" + i, 4, 1));
+        }
+        Path bank = compile(json(first + "]}, " + second + "]}"));
+
+        System.setProperty("kahoot.quiz.bank", bank.toString());
+        try {
+            for (int g = 0; g < 20; g++) {
+                Quiz quiz = new Game("g" + g, 2, 1, 10).getQuiz();
+                assertEquals("Primeiro", quiz.getName());
+                Question question;
+                while ((question = quiz.getNextQuestion()) != null) {
+                    assertTrue(question.getQuestion().startsWith("A"), "Pergunta de outro quiz: "
+                            + question.getQuestion());
+                }
+            }
+        } finally {
+            System.clearProperty("kahoot.quiz.bank");
+        }
+    }
+}
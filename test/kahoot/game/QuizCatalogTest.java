@@ -0,0 +1,70 @@
+package kahoot.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vistas baralhadas do catálogo: k perguntas distintas do quiz pedido, todas as
+ * perguntas quando se pedem mais do que existem, e Quiz.addQuestion continua a funcionar.
+ */
+class QuizCatalogTest {
+    private static Path writeCatalog(int questions) throws Exception {
+        StringBuilder json = new StringBuilder("{\"quizzes\": [{\"name\": \"Grande\", \"questions\": [");
+        for (int i = 0; i < questions; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"question\": \"P").append(i)
+                    .append("\", \"points\": 1, \"correct\": 0, \"options\": [\"a\", \"b\"]}");
+        }
+        json.append("]}]}");
+        Path file = Files.createTempFile("catalog", ".json");
+        file.toFile().deleteOnExit();
+        Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    void sampledQuestionsAreDistinct() throws Exception {
+        QuizCatalog catalog = QuizCatalog.forFile(writeCatalog(100_000).toString());
+        for (int round = 0; round < 200; round++) {
+            Quiz quiz = catalog.newQuiz("Grande", 20);
+            assertEquals(20, quiz.getTotalQuestions());
+            Set<String> seen = new HashSet<>();
+            Question question;
+            while ((question = quiz.getNextQuestion()) != null) {
+                assertTrue(seen.add(question.getQuestion()), "Pergunta repetida: " + question.getQuestion());
+            }
+        }
+    }
+
+    @Test
+    void askingForMoreThanThePoolReturnsEveryQuestion() throws Exception {
+        Quiz quiz = QuizCatalog.forFile(writeCatalog(7).toString()).newQuiz(null, 50);
+        assertEquals(7, quiz.getTotalQuestions());
+        Set<String> seen = new HashSet<>();
+        Question question;
+        while ((question = quiz.getNextQuestion()) != null) {
+            seen.add(question.getQuestion());
+        }
+        assertEquals(7, seen.size());
+    }
+
+    @Test
+    void catalogQuizAcceptsExtraQuestions() throws Exception {
+        Quiz quiz = QuizCatalog.forFile(writeCatalog(10).toString()).newQuiz(null, 3);
+        quiz.addQuestion(new Question("Extra", new String[] {"a", "b"}, 1, 5));
+        assertEquals(4, quiz.getTotalQuestions());
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(quiz.getNextQuestion());
+        }
+        assertEquals("Extra", quiz.getNextQuestion().getQuestion());
+    }
+}
@@ -0,0 +1,280 @@
+package kahoot.server;
+
+import kahoot.messages.*;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Caminho das respostas sem locks (GameState.acceptAnswer / Round) sob concorrência:
+ * muitas threads a responder ao mesmo tempo, respostas duplicadas e tardias, e a
+ * última resposta a competir com o fim do prazo pelo CAS em Round.ended.
+ * Os clientes são ligações em memória que guardam as mensagens recebidas.
+ */
+class AnswerPathStressTest {
+    private static final int THREADS = 16;
+
+    private static GameServer server;
+
+    // Ligação sem socket: descodifica e guarda cada frame enviado
+    static final class RecordingClient extends ClientConnection {
+        final List<Message> received = new ArrayList<>();
+
+        RecordingClient(GameServer server) {
+            super(server);
+        }
+
+        @Override
+        public void sendFrame(OutboundFrame frame) {
+            if (frame == OutboundFrame.CLOSE) {
+                return; // Pedido de fecho depois das mensagens já enviadas - sem transporte, nada a fazer
+            }
+            try {
+                ByteBuffer buffer = frame.buffer();
+                byte[] payload = new byte[buffer.getInt()];
+                buffer.get(payload);
+                Message msg = WireFormat.decode(payload, 0, payload.length);
+                synchronized (received) {
+                    received.add(msg);
+                }
+            } catch (Exception e) {
+                throw new AssertionError("Frame inválido", e);
+            } finally {
+                frame.done();
+            }
+        }
+
+        @Override
+        protected void closeTransport() {
+        }
+
+        List<Message> snapshot() {
+            synchronized (received) {
+                return new ArrayList<>(received);
+            }
+        }
+
+        QuestionMessage question(int questionIndex) {
+            for (Message msg : snapshot()) {
+                if (msg instanceof QuestionMessage && ((QuestionMessage) msg).getQuestionIndex() == questionIndex) {
+                    return (QuestionMessage) msg;
+                }
+            }
+            return null;
+        }
+
+        // Pontuações (completas ou deltas) recebidas para a pergunta indicada
+        List<Message> scores(int questionIndex) {
+            List<Message> scores = new ArrayList<>();
+            for (Message msg : snapshot()) {
+                if (msg instanceof ScoreMessage && ((ScoreMessage) msg).getQuestionIndex() == questionIndex
+                        || msg instanceof ScoreDeltaMessage
+                        && ((ScoreDeltaMessage) msg).getQuestionIndex() == questionIndex) {
+                    scores.add(msg);
+                }
+            }
+            return scores;
+        }
+
+        int count(Class<? extends Message> type) {
+            int count = 0;
+            for (Message msg : snapshot()) {
+                if (type.isInstance(msg)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private record Seat(String teamId, String username, RecordingClient client) {}
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        server = new GameServer(new ServerConfig(0, ServerConfig.Transport.BLOCKING, 1,
+                ServerConfig.ThreadMode.PLATFORM, 1 << 16, OutboundQueue.OverflowPolicy.DROP_SUPERSEDED,
+                16, 0, 0, null));
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.shutdown();
+    }
+
+    private static List<Seat> join(GameState game, int teams, int perTeam) {
+        List<Seat> seats = new ArrayList<>();
+        for (int t = 1; t <= teams; t++) {
+            for (int p = 0; p < perTeam; p++) {
+                Seat seat = new Seat("Team" + t, "u" + t + "_" + p, new RecordingClient(server));
+                assertNotNull(game.addPlayer(seat.teamId(), seat.username(), seat.client()));
+                seats.add(seat);
+            }
+        }
+        return seats;
+    }
+
+    // Cada jogador responde "repeats" vezes à pergunta e uma vez à anterior, repartidos por THREADS threads
+    private static void answerConcurrently(GameState game, List<Seat> seats, int questionIndex, int answer,
+                                           int repeats) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int k = 0; k < THREADS; k++) {
+                int first = k;
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    for (int r = 0; r < repeats; r++) {
+                        for (int i = first; i < seats.size(); i += THREADS) {
+                            Seat seat = seats.get(i);
+                            game.processAnswer(new AnswerMessage(game.getGameId(), seat.teamId(), seat.username(),
+                                    questionIndex, answer));
+                            game.processAnswer(new AnswerMessage(game.getGameId(), seat.teamId(), seat.username(),
+                                    questionIndex - 1, answer));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static int sum(Map<String, Integer> scores) {
+        int total = 0;
+        for (int score : scores.values()) {
+            total += score;
+        }
+        return total;
+    }
+
+    @Test
+    void individualAnswersFromManyThreadsAreCountedOnce() throws Exception {
+        GameState game = new GameState("stress-individual", 8, 32, 2, server);
+        List<Seat> seats = join(game, 8, 32);
+        QuestionMessage question = seats.get(0).client().question(0);
+        assertNotNull(question, "A primeira pergunta deve sair quando a última equipa fica completa");
+        int points = question.getQuestion().getPoints();
+
+        answerConcurrently(game, seats, 0, question.getQuestion().getCorrect(), 3);
+
+        // A última resposta termina a ronda: uma pontuação por jogador e a pergunta seguinte já enviada
+        int roundPoints = 0;
+        for (Seat seat : seats) {
+            List<Message> scores = seat.client().scores(0);
+            assertEquals(1, scores.size(), "Pontuações da pergunta 0 para " + seat.username());
+            ScoreMessage score = (ScoreMessage) scores.get(0);
+            roundPoints += score.getCurrentRoundPoints();
+            assertNotNull(seat.client().question(1), "Pergunta 1 para " + seat.username());
+        }
+        // Todos acertaram; os dois primeiros a chegar ganham o dobro
+        int expected = points * (seats.size() + 2);
+        assertEquals(expected, roundPoints);
+        assertEquals(expected, sum(((ScoreMessage) seats.get(0).client().scores(0).get(0)).getTeamScores()));
+    }
+
+    @Test
+    void teamAnswersFromManyThreadsScoreEachTeamOnce() throws Exception {
+        GameState game = new GameState("stress-team", 8, 32, 2, server);
+        List<Seat> seats = join(game, 8, 32);
+        QuestionMessage first = seats.get(0).client().question(0);
+        answerConcurrently(game, seats, 0, first.getQuestion().getCorrect(), 1);
+
+        QuestionMessage question = seats.get(0).client().question(1);
+        assertNotNull(question);
+        assertTrue(question.isTeamQuestion());
+        answerConcurrently(game, seats, 1, question.getQuestion().getCorrect(), 3);
+
+        // Cada barreira dispara uma vez: todas as equipas acertaram e ganham o dobro, uma só vez
+        int bonus = question.getQuestion().getPoints() * 2;
+        for (Seat seat : seats) {
+            assertEquals(1, seat.client().scores(1).size(), "Pontuações da pergunta 1 para " + seat.username());
+            assertEquals(1, seat.client().count(GameEndMessage.class), "Fim de jogo para " + seat.username());
+        }
+        Map<String, Integer> before = ((ScoreMessage) seats.get(0).client().scores(0).get(0)).getTeamScores();
+        GameEndMessage end = (GameEndMessage) seats.get(0).client().snapshot().stream()
+                .filter(GameEndMessage.class::isInstance).findFirst().orElseThrow();
+        for (Map.Entry<String, Integer> team : end.getFinalScores().entrySet()) {
+            assertEquals(before.get(team.getKey()) + bonus, (int) team.getValue(), "Pontuação de " + team.getKey());
+        }
+    }
+
+    @Test
+    void lastAnswerAndExpiryEndEachRoundOnce() throws Exception {
+        for (int g = 0; g < 30; g++) {
+            GameState game = new GameState("stress-expiry-" + g, 2, 4, 7, server);
+            List<Seat> seats = join(game, 2, 4);
+            RecordingClient observer = seats.get(0).client();
+
+            int questionIndex = 0;
+            int maxTotal = 0;
+            while (!game.isFinished()) {
+                QuestionMessage question = observer.question(questionIndex);
+                assertNotNull(question, "Pergunta " + questionIndex + " do jogo " + g);
+                int points = question.getQuestion().getPoints();
+                maxTotal += question.isTeamQuestion() ? points * 2 * 2 : points * (seats.size() + 2);
+
+                // Todos os jogadores e o prazo partem ao mesmo tempo: só um fecha a ronda
+                int questionNumber = questionIndex;
+                CyclicBarrier gate = new CyclicBarrier(seats.size() + 1);
+                List<Thread> racers = new ArrayList<>();
+                for (Seat seat : seats) {
+                    racers.add(Thread.ofPlatform().start(() -> {
+                        await(gate);
+                        game.processAnswer(new AnswerMessage(game.getGameId(), seat.teamId(), seat.username(),
+                                questionNumber, question.getQuestion().getCorrect()));
+                    }));
+                }
+                racers.add(Thread.ofPlatform().start(() -> {
+                    await(gate);
+                    game.expireQuestion(questionNumber);
+                }));
+                for (Thread racer : racers) {
+                    racer.join(TimeUnit.SECONDS.toMillis(30));
+                    assertFalse(racer.isAlive(), "Thread presa na pergunta " + questionIndex);
+                }
+
+                for (Seat seat : seats) {
+                    assertEquals(1, seat.client().scores(questionIndex).size(),
+                            "Rondas terminadas na pergunta " + questionIndex + " do jogo " + g);
+                }
+                questionIndex++;
+            }
+
+            assertEquals(7, questionIndex);
+            for (Seat seat : seats) {
+                assertEquals(1, seat.client().count(GameEndMessage.class));
+            }
+            GameEndMessage end = (GameEndMessage) observer.snapshot().stream()
+                    .filter(GameEndMessage.class::isInstance).findFirst().orElseThrow();
+            int total = sum(end.getFinalScores());
+            assertTrue(total >= 0 && total <= maxTotal, "Pontuação final " + total + " > máximo " + maxTotal);
+        }
+    }
+
+    private static void await(CyclicBarrier gate) {
+        try {
+            gate.await(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package kahoot.server;
+
+import kahoot.messages.*;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Inscrições com IDs em falta são recusadas antes de tocarem no jogo: nenhum jogador
+ * fantasma fica com um lugar na equipa e o handler não rebenta.
+ */
+class EnrollmentTest {
+    private static GameServer server;
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        server = new GameServer(new ServerConfig(0, ServerConfig.Transport.BLOCKING, 1,
+                ServerConfig.ThreadMode.PLATFORM, 64, OutboundQueue.OverflowPolicy.DROP_SUPERSEDED,
+                16, 0, 0, null));
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.shutdown();
+    }
+
+    private static String lastError(AnswerPathStressTest.RecordingClient client) {
+        String error = null;
+        for (Message msg : client.snapshot()) {
+            if (msg instanceof ErrorMessage) {
+                error = ((ErrorMessage) msg).getErrorMessage();
+            }
+        }
+        return error;
+    }
+
+    @Test
+    void missingIdsAreRejectedWithoutTakingASlot() {
+        String gameId = server.createGame(1, 1, 1, null).getGameId();
+        String[][] invalid = {
+                {gameId, "Team1", null},
+                {gameId, "Team1", ""},
+                {gameId, null, "sem-equipa"},
+                {null, "Team1", "sem-jogo"},
+        };
+        for (String[] ids : invalid) {
+            AnswerPathStressTest.RecordingClient client = new AnswerPathStressTest.RecordingClient(server);
+            client.handleMessage(new EnrollmentMessage(ids[0], ids[1], ids[2]));
+            assertFalse(lastError(client).startsWith("SUCCESS"), "Inscrição aceite: " + String.join("/",
+                    String.valueOf(ids[0]), String.valueOf(ids[1]), String.valueOf(ids[2])));
+        }
+
+        // O único lugar continua livre
+        AnswerPathStressTest.RecordingClient good = new AnswerPathStressTest.RecordingClient(server);
+        good.handleMessage(new EnrollmentMessage(gameId, "Team1", "bom"));
+        assertTrue(lastError(good).startsWith("SUCCESS"), lastError(good));
+        assertEquals(1, good.count(SessionMessage.class));
+    }
+
+    @Test
+    void resumeAndAnswerWithoutUsernameAreIgnored() {
+        String gameId = server.createGame(1, 2, 1, null).getGameId();
+        AnswerPathStressTest.RecordingClient client = new AnswerPathStressTest.RecordingClient(server);
+        client.handleMessage(new ResumeMessage(gameId, "Team1", null, "token"));
+        assertNotNull(lastError(client));
+        assertFalse(lastError(client).startsWith("SUCCESS"));
+
+        client.handleMessage(new AnswerMessage(gameId, "Team1", null, 0, 1));
+        assertEquals(0, server.getGame(gameId).getPlayerCount());
+    }
+}
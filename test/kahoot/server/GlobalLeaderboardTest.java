@@ -0,0 +1,218 @@
+package kahoot.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classificação global em ficheiro: totais por janela, o mesmo resultado depois de
+ * compactar e recarregar (sem perder nem duplicar jogos gravados durante a compactação),
+ * e um fim de ficheiro incompleto, corrompido ou com um tipo desconhecido é descartado.
+ */
+class GlobalLeaderboardTest {
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private static Path newFile() throws IOException {
+        Path dir = Files.createTempDirectory("leaderboard");
+        dir.toFile().deleteOnExit();
+        Path file = dir.resolve("global.klb");
+        file.toFile().deleteOnExit();
+        dir.resolve("global.klb.tmp").toFile().deleteOnExit();
+        return file;
+    }
+
+    private static GlobalLeaderboard.PlayerResult player(String username, int score, boolean won) {
+        return new GlobalLeaderboard.PlayerResult(username, "Team1", score, won);
+    }
+
+    // Quatro jogos: há 10 dias, 2 dias, 2 horas e 10 minutos
+    private static void recordGames(GlobalLeaderboard board, long now) {
+        board.record("g1", now - 10 * DAY, List.of(player("ana", 10, true), player("rui", 5, false)));
+        board.record("g2", now - 2 * DAY, List.of(player("ana", 7, false), player("rui", 9, true)));
+        board.record("g3", now - 2 * HOUR, List.of(player("ana", 3, true), player("rui", 4, false)));
+        board.record("g4", now - 10 * MINUTE, List.of(player("ana", 1, false), player("rui", 2, true)));
+    }
+
+    // jogador -> {pontos, jogos, vitórias}
+    private static Map<String, List<Integer>> standings(GlobalLeaderboard board, String window) {
+        Map<String, List<Integer>> byName = new HashMap<>();
+        for (GlobalLeaderboard.Standing standing : board.top(window, 100)) {
+            byName.put(standing.username(), List.of(standing.points(), standing.games(), standing.wins()));
+        }
+        return byName;
+    }
+
+    private static void assertWindows(GlobalLeaderboard board) {
+        assertEquals(Map.of("ana", List.of(1, 1, 0), "rui", List.of(2, 1, 1)), standings(board, "1h"));
+        assertEquals(Map.of("ana", List.of(4, 2, 1), "rui", List.of(6, 2, 1)), standings(board, "24h"));
+        assertEquals(Map.of("ana", List.of(11, 3, 1), "rui", List.of(15, 3, 2)), standings(board, "7d"));
+        assertEquals(Map.of("ana", List.of(21, 4, 2), "rui", List.of(20, 4, 2)), standings(board, "all"));
+    }
+
+    @Test
+    void windowsSumOnlyTheirGames() throws Exception {
+        Path file = newFile();
+        GlobalLeaderboard board = new GlobalLeaderboard(file);
+        recordGames(board, System.currentTimeMillis());
+        assertWindows(board);
+        board.close();
+
+        // Recarregado só com resultados (sem compactação)
+        GlobalLeaderboard reloaded = new GlobalLeaderboard(file);
+        assertWindows(reloaded);
+        reloaded.close();
+    }
+
+    @Test
+    void compactionKeepsTotalsAcrossReload() throws Exception {
+        Path file = newFile();
+        GlobalLeaderboard board = new GlobalLeaderboard(file);
+        recordGames(board, System.currentTimeMillis());
+        board.compactNow();
+        assertWindows(board);
+        board.close();
+
+        // O jogo de há 10 dias passou a um total por jogador; os outros continuam a contar nas janelas
+        GlobalLeaderboard reloaded = new GlobalLeaderboard(file);
+        assertWindows(reloaded);
+        reloaded.record("g5", System.currentTimeMillis(), List.of(player("ana", 100, true)));
+        reloaded.compactNow();
+        reloaded.close();
+
+        GlobalLeaderboard again = new GlobalLeaderboard(file);
+        assertEquals(List.of(121, 5, 3), standings(again, "all").get("ana"));
+        assertEquals(List.of(101, 2, 1), standings(again, "1h").get("ana"));
+        again.close();
+    }
+
+    @Test
+    void gamesRecordedDuringCompactionAreNeitherLostNorDuplicated() throws Exception {
+        Path file = newFile();
+        GlobalLeaderboard board = new GlobalLeaderboard(file);
+        int threads = 4;
+        int perThread = 2000;
+        CountDownLatch compacting = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            writers.add(Thread.ofPlatform().start(() -> {
+                awaitQuietly(compacting);
+                for (int i = 0; i < perThread; i++) {
+                    // Metade fica fora da janela de 7 dias e é dobrada num total na compactação
+                    long finishedAt = System.currentTimeMillis() - (i % 2 == 0 ? 10 * DAY : MINUTE);
+                    board.record("g" + id + "_" + i, finishedAt, List.of(player("p" + id, 1, i % 3 == 0)));
+                }
+            }));
+        }
+        compacting.countDown();
+        // Sem compactação final: os resultados gravados depois da última ficam no ficheiro tal como
+        // chegaram, e os que ela já incluiu não podem voltar a ser acrescentados
+        while (writers.stream().anyMatch(Thread::isAlive)) {
+            board.compactNow();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        Map<String, List<Integer>> expected = standings(board, "all");
+        board.close();
+
+        GlobalLeaderboard reloaded = new GlobalLeaderboard(file);
+        assertEquals(expected, standings(reloaded, "all"));
+        for (int t = 0; t < threads; t++) {
+            assertEquals(perThread, (int) expected.get("p" + t).get(1), "Jogos de p" + t);
+        }
+        assertEquals(perThread / 2, (int) standings(reloaded, "7d").get("p0").get(1));
+        reloaded.close();
+    }
+
+    @Test
+    void truncatedOrCorruptTailIsDiscarded() throws Exception {
+        Path file = newFile();
+        long now = System.currentTimeMillis();
+        GlobalLeaderboard board = new GlobalLeaderboard(file);
+        board.record("g1", now, List.of(player("ana", 5, true)));
+        board.close();
+        long oneRecord = Files.size(file);
+
+        board = new GlobalLeaderboard(file);
+        board.record("g2", now, List.of(player("ana", 7, false)));
+        board.close();
+        long twoRecords = Files.size(file);
+
+        // Escrita a meio: um tamanho sem o resto do registo
+        appendBytes(file, ByteBuffer.allocate(6).putInt(100).putShort((short) 1).array());
+        board = new GlobalLeaderboard(file);
+        assertEquals(List.of(12, 2, 1), standings(board, "all").get("ana"));
+        board.close();
+        assertEquals(twoRecords, Files.size(file));
+
+        // CRC errado no último registo: só ele se perde
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), twoRecords - 5);
+        }
+        board = new GlobalLeaderboard(file);
+        assertEquals(List.of(5, 1, 1), standings(board, "all").get("ana"));
+        board.record("g3", now, List.of(player("ana", 1, false)));
+        board.close();
+        assertTrue(Files.size(file) > oneRecord);
+
+        board = new GlobalLeaderboard(file);
+        assertEquals(List.of(6, 2, 1), standings(board, "all").get("ana"));
+        board.close();
+    }
+
+    @Test
+    void unknownRecordTypeIsDiscardedInsteadOfRefusingToStart() throws Exception {
+        Path file = newFile();
+        GlobalLeaderboard board = new GlobalLeaderboard(file);
+        board.record("g1", System.currentTimeMillis(), List.of(player("ana", 5, true)));
+        board.close();
+        long valid = Files.size(file);
+
+        // Registo com CRC certo mas de um tipo que esta versão não conhece
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(payload);
+        out.writeByte(9);
+        out.writeUTF("futuro");
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        appendBytes(file, ByteBuffer.allocate(4 + bytes.length + 4)
+                .putInt(bytes.length).put(bytes).putInt((int) crc.getValue()).array());
+
+        board = new GlobalLeaderboard(file);
+        assertEquals(List.of(5, 1, 1), standings(board, "all").get("ana"));
+        board.close();
+        assertEquals(valid, Files.size(file));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void appendBytes(Path file, byte[] bytes) throws IOException {
+        Files.write(file, bytes, StandardOpenOption.APPEND);
+    }
+}